@@ -76,6 +76,11 @@ public class WhisperServerConfiguration extends Configuration {
   @JsonProperty
   private DataSourceFactory messageStore;
 
+  @Valid
+  @NotNull
+  @JsonProperty
+  private MessageRetentionConfiguration messageRetention = new MessageRetentionConfiguration();
+
   @Valid
   @NotNull
   @JsonProperty
@@ -98,6 +103,15 @@ public class WhisperServerConfiguration extends Configuration {
   @JsonProperty
   private DataSourceFactory read_database;
 
+  @JsonProperty
+  @Min(0)
+  private long readDatabaseMaxLagMillis = 1000;
+
+  @Valid
+  @NotNull
+  @JsonProperty
+  private AccountCacheConfiguration accountCache = new AccountCacheConfiguration();
+
   @Valid
   @NotNull
   @JsonProperty
@@ -40,6 +40,8 @@ import org.whispersystems.textsecuregcm.auth.AccountAuthenticator;
 import org.whispersystems.textsecuregcm.auth.FederatedPeerAuthenticator;
 import org.whispersystems.textsecuregcm.auth.TurnTokenGenerator;
 import org.whispersystems.textsecuregcm.configuration.BandwidthConfiguration;
+import org.whispersystems.textsecuregcm.configuration.MessageCacheShardConfiguration;
+import org.whispersystems.textsecuregcm.configuration.RedisConfiguration;
 import org.whispersystems.textsecuregcm.controllers.*;
 import org.whispersystems.textsecuregcm.federation.FederatedClientManager;
 import org.whispersystems.textsecuregcm.federation.FederatedPeer;
@@ -56,6 +58,7 @@ import org.whispersystems.textsecuregcm.sms.SmsSender;
 import org.whispersystems.textsecuregcm.sms.TwilioSmsSender;
 import org.whispersystems.textsecuregcm.storage.*;
 import org.whispersystems.textsecuregcm.util.Constants;
+import org.whispersystems.textsecuregcm.util.Pair;
 import org.whispersystems.textsecuregcm.websocket.*;
 import org.whispersystems.textsecuregcm.workers.*;
 import org.whispersystems.websocket.WebSocketResourceProviderFactory;
@@ -66,6 +69,8 @@ import javax.servlet.FilterRegistration;
 import javax.servlet.ServletRegistration;
 import java.security.Security;
 import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
@@ -84,6 +89,7 @@ public class WhisperServerService extends Application<WhisperServerConfiguration
         bootstrap.addCommand(new DirectoryCommand());
         bootstrap.addCommand(new VacuumCommand());
         bootstrap.addCommand(new TrimMessagesCommand());
+        bootstrap.addCommand(new CopyMessagesCommand());
         bootstrap.addCommand(new PeriodicStatsCommand());
         bootstrap.addCommand(new DeleteUserCommand());
         bootstrap.addBundle(new NameableMigrationsBundle<WhisperServerConfiguration>("accountdb", "accountsdb.xml") {
@@ -141,31 +147,60 @@ public class WhisperServerService extends Application<WhisperServerConfiguration
         Keys keys = database.onDemand(Keys.class);
         Messages messages = messagedb.onDemand(Messages.class);
 
+        Accounts replicaAccounts = accounts;
+        Optional<ReplicaLagMonitor> replicaLagMonitor = Optional.absent();
+
+        if (config.getRead_database() != null) {
+            DBI readDatabase = dbiFactory.build(environment, config.getRead_database(), "read_accountdb");
+
+            replicaAccounts = readDatabase.onDemand(Accounts.class);
+            replicaLagMonitor = Optional.of(new ReplicaLagMonitor("read_accountdb", readDatabase.onDemand(ReplicaStatus.class),
+                                                                  config.getReadDatabaseMaxLagMillis()));
+        }
+
         RedisClientFactory cacheClientFactory = new RedisClientFactory(config.getCache().getUrl(),
                                                                        config.getCache().getReplicaUrls());
         RedisClientFactory directoryClientFactory = new RedisClientFactory(config.getDirectory().getUrl(),
                                                                            config.getDirectory().getReplicaUrls());
-        RedisClientFactory messagesClientFactory = new RedisClientFactory(
-                config.getMessageCache().getRedisConfiguration().getUrl(),
-                config.getMessageCache().getRedisConfiguration().getReplicaUrls());
         RedisClientFactory pushSchedulerClientFactory = new RedisClientFactory(config.getPushScheduler().getUrl(),
                                                                                config.getPushScheduler().getReplicaUrls());
 
         ReplicatedJedisPool cacheClient = cacheClientFactory.getRedisClientPool();
         ReplicatedJedisPool directoryClient = directoryClientFactory.getRedisClientPool();
-        ReplicatedJedisPool messagesClient = messagesClientFactory.getRedisClientPool();
+        List<Pair<ReplicatedJedisPool, MessageCacheShardConfiguration>> messagesClients = new LinkedList<>();
+
+        for (MessageCacheShardConfiguration messagesShard : config.getMessageCache().getShardConfigurations()) {
+            RedisConfiguration redis = messagesShard.getRedisConfiguration();
+            messagesClients.add(new Pair<>(new RedisClientFactory(redis.getUrl(), redis.getReplicaUrls()).getRedisClientPool(),
+                                           messagesShard));
+        }
         ReplicatedJedisPool pushSchedulerClient = pushSchedulerClientFactory.getRedisClientPool();
 
         DirectoryManager directory = new DirectoryManager(directoryClient);
         PendingAccountsManager pendingAccountsManager = new PendingAccountsManager(pendingAccounts, cacheClient);
         PendingDevicesManager pendingDevicesManager = new PendingDevicesManager(pendingDevices, cacheClient);
-        AccountsManager accountsManager = new AccountsManager(accounts, directory, cacheClient);
+        Optional<LocalAccountCache> localAccountCache = Optional.absent();
+
+        if (config.getAccountCache().isEnabled()) {
+            localAccountCache = Optional.of(new LocalAccountCache(config.getAccountCache().getMaxSize(),
+                                                                  config.getAccountCache().getExpireSeconds()));
+        }
+
+        AccountsManager accountsManager = new AccountsManager(accounts, replicaAccounts, replicaLagMonitor, localAccountCache,
+                                                              directory, cacheClient);
         FederatedClientManager federatedClientManager = new FederatedClientManager(environment,
                                                                                    config.getHttpClient(),
                                                                                    config.getFederation());
-        MessagesCache messagesCache = new MessagesCache(messagesClient, messages, accountsManager,
-                                                        config.getMessageCache().getPersistDelayMinutes());
-        MessagesManager messagesManager = new MessagesManager(messages, messagesCache,
+        EmptyQueueCache emptyQueueCache = new EmptyQueueCache(cacheClient, config.getMessageCache().getEmptyQueueCacheSize(),
+                                                              config.getMessageCache().getEmptyQueueCacheSeconds());
+        MessagesCache messagesCache = new MessagesCache(messagesClients, messages, emptyQueueCache, accountsManager,
+                                                        config.getMessageCache().getPersistDelayMinutes(),
+                                                        config.getMessageCache().getPersisterWorkers(),
+                                                        config.getMessageCache().getPersistLeaseSeconds(),
+                                                        config.getMessageCache().getMaxQueueSize(),
+                                                        config.getMessageCache().getMaxQueueBytes());
+        MessageQueueTrimmer messageQueueTrimmer = new MessageQueueTrimmer(messages);
+        MessagesManager messagesManager = new MessagesManager(messages, messagesCache, emptyQueueCache, messageQueueTrimmer,
                                                               config.getMessageCache().getCacheRate());
         DeadLetterHandler deadLetterHandler = new DeadLetterHandler(messagesManager);
         DispatchManager dispatchManager = new DispatchManager(cacheClientFactory, Optional.of(deadLetterHandler));
@@ -174,7 +209,10 @@ public class WhisperServerService extends Application<WhisperServerConfiguration
         APNSender apnSender = null;
         GCMSender gcmSender = new GCMSender(accountsManager, config.getGcm().getApiKey());
         WebsocketSender websocketSender = new WebsocketSender(messagesManager, pubSubManager);
-        AccountAuthenticator deviceAuthenticator = new AccountAuthenticator(accountsManager);
+        LastSeenWriter lastSeenWriter = new LastSeenWriter(accountsManager);
+        ActivityStats activityStats = new ActivityStats(cacheClient);
+        AccountAuthenticator deviceAuthenticator = new AccountAuthenticator(accountsManager, Optional.of(lastSeenWriter),
+                                                                            Optional.of(activityStats));
         FederatedPeerAuthenticator federatedPeerAuthenticator = new FederatedPeerAuthenticator(
                 config.getFederation());
         RateLimiters rateLimiters = new RateLimiters(config.getLimits(), cacheClient);
@@ -189,16 +227,40 @@ public class WhisperServerService extends Application<WhisperServerConfiguration
         TurnTokenGenerator turnTokenGenerator = new TurnTokenGenerator(config.getTurn());
 
         messagesCache.setPubSubManager(pubSubManager, pushSender);
+        emptyQueueCache.setPubSubManager(pubSubManager);
+
+        if (localAccountCache.isPresent()) {
+            localAccountCache.get().setPubSubManager(pubSubManager);
+        }
 
 //    apnSender.setApnFallbackManager(apnFallbackManager);
+        if (replicaLagMonitor.isPresent()) {
+            environment.lifecycle().manage(replicaLagMonitor.get());
+        }
+
         environment.lifecycle().manage(apnFallbackManager);
         environment.lifecycle().manage(pubSubManager);
+        environment.lifecycle().manage(emptyQueueCache);
+
+        if (localAccountCache.isPresent()) {
+            environment.lifecycle().manage(localAccountCache.get());
+        }
+
         environment.lifecycle().manage(pushSender);
+        environment.lifecycle().manage(lastSeenWriter);
+        environment.lifecycle().manage(activityStats);
         environment.lifecycle().manage(messagesCache);
+        environment.lifecycle().manage(messageQueueTrimmer);
+        environment.lifecycle().manage(new MessagePartitionTask(messages));
+
+        if (config.getMessageRetention().isEnabled()) {
+            environment.lifecycle().manage(new MessageRetentionTask(messages, cacheClient, config.getMessageRetention()));
+        }
 
         AttachmentController attachmentController = new AttachmentController(rateLimiters, federatedClientManager,
                                                                              urlSigner);
-        KeysController keysController = new KeysController(rateLimiters, keys, accountsManager, federatedClientManager);
+        KeysController keysController = new KeysController(rateLimiters, keys, accountsManager, federatedClientManager,
+                                                           Optional.of(activityStats));
         MessageController messageController = new MessageController(rateLimiters, pushSender, receiptSender,
                                                                     accountsManager, messagesManager,
                                                                     federatedClientManager, apnFallbackManager);
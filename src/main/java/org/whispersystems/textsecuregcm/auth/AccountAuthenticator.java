@@ -25,10 +25,14 @@ import org.slf4j.LoggerFactory;
 import org.whispersystems.dropwizard.simpleauth.Authenticator;
 import org.whispersystems.textsecuregcm.storage.Account;
 import org.whispersystems.textsecuregcm.storage.AccountsManager;
+import org.whispersystems.textsecuregcm.storage.ActivityStats;
 import org.whispersystems.textsecuregcm.storage.Device;
+import org.whispersystems.textsecuregcm.storage.LastSeenWriter;
 import org.whispersystems.textsecuregcm.util.Constants;
 import org.whispersystems.textsecuregcm.util.Util;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.codahale.metrics.MetricRegistry.name;
 import io.dropwizard.auth.AuthenticationException;
 import io.dropwizard.auth.basic.BasicCredentials;
@@ -41,10 +45,31 @@ public class AccountAuthenticator implements Authenticator<BasicCredentials, Acc
 
   private final Logger logger = LoggerFactory.getLogger(AccountAuthenticator.class);
 
-  private final AccountsManager accountsManager;
+  private static final int CREDENTIAL_CACHE_SIZE    = 100000;
+  private static final int CREDENTIAL_CACHE_SECONDS = (int)TimeUnit.MINUTES.toSeconds(5);
+
+  private final AccountsManager          accountsManager;
+  private final CredentialCache          credentialCache;
+  private final Optional<LastSeenWriter> lastSeenWriter;
+  private final Optional<ActivityStats>  activityStats;
 
   public AccountAuthenticator(AccountsManager accountsManager) {
+    this(accountsManager, Optional.absent(), Optional.absent());
+  }
+
+  public AccountAuthenticator(AccountsManager accountsManager, Optional<LastSeenWriter> lastSeenWriter,
+                              Optional<ActivityStats> activityStats)
+  {
+    this(accountsManager, new CredentialCache(CREDENTIAL_CACHE_SIZE, CREDENTIAL_CACHE_SECONDS), lastSeenWriter, activityStats);
+  }
+
+  public AccountAuthenticator(AccountsManager accountsManager, CredentialCache credentialCache,
+                              Optional<LastSeenWriter> lastSeenWriter, Optional<ActivityStats> activityStats)
+  {
     this.accountsManager = accountsManager;
+    this.credentialCache = credentialCache;
+    this.lastSeenWriter  = lastSeenWriter;
+    this.activityStats   = activityStats;
   }
 
   @Override
@@ -65,7 +90,7 @@ public class AccountAuthenticator implements Authenticator<BasicCredentials, Acc
         return Optional.absent();
       }
 
-      if (device.get().getAuthenticationCredentials().verify(basicCredentials.getPassword())) {
+      if (verify(authorizationHeader, device.get(), basicCredentials.getPassword())) {
         authenticationSucceededMeter.mark();
         account.get().setAuthenticatedDevice(device.get());
         updateLastSeen(account.get(), device.get());
@@ -79,10 +104,37 @@ public class AccountAuthenticator implements Authenticator<BasicCredentials, Acc
     }
   }
 
+  private boolean verify(AuthorizationHeader authorizationHeader, Device device, String password) {
+    AuthenticationCredentials credentials = device.getAuthenticationCredentials();
+    String                    number      = authorizationHeader.getNumber();
+    long                      deviceId    = authorizationHeader.getDeviceId();
+
+    if (credentialCache.isVerified(number, deviceId, credentials, password)) {
+      return true;
+    }
+
+    if (credentials.verify(password)) {
+      credentialCache.setVerified(number, deviceId, credentials, password);
+      return true;
+    }
+
+    return false;
+  }
+
   private void updateLastSeen(Account account, Device device) {
     if (device.getLastSeen() != Util.todayInMillis()) {
       device.setLastSeen(Util.todayInMillis());
-      accountsManager.update(account);
+
+      if (activityStats.isPresent()) {
+        activityStats.get().onSeen(account.getNumber(), device, device.getLastSeen());
+      }
+
+      if (lastSeenWriter.isPresent()) {
+        lastSeenWriter.get().onSeen(account.getNumber(), device.getId(), device.getLastSeen());
+      } else {
+        // Best effort: a conflicting write is retried on the device's next request
+        accountsManager.update(account);
+      }
     }
   }
 
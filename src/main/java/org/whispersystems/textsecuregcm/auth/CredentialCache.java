@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2013 Open WhisperSystems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.whispersystems.textsecuregcm.auth;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.whispersystems.textsecuregcm.util.Constants;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * A node-local record of recently verified device credentials, so that a
+ * chatty client doesn't pay for a full credential check on every request.
+ * Tokens are never held; an entry keeps a keyed SipHash tag of the token,
+ * alongside the stored credentials it was checked against, so any change
+ * to a device's credentials invalidates it.
+ */
+public class CredentialCache {
+
+  private static final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+  private static final Meter          hitMeter       = metricRegistry.meter(name(CredentialCache.class, "hit" ));
+  private static final Meter          missMeter      = metricRegistry.meter(name(CredentialCache.class, "miss"));
+
+  private final Cache<String, VerifiedCredentials> verified;
+  private final HashFunction                       tagFunction;
+
+  public CredentialCache(long maximumSize, int expirationSeconds) {
+    SecureRandom random = new SecureRandom();
+
+    this.tagFunction = Hashing.sipHash24(random.nextLong(), random.nextLong());
+    this.verified    = CacheBuilder.newBuilder()
+                                   .maximumSize(maximumSize)
+                                   .expireAfterWrite(expirationSeconds, TimeUnit.SECONDS)
+                                   .build();
+  }
+
+  public boolean isVerified(String number, long deviceId, AuthenticationCredentials credentials, String token) {
+    VerifiedCredentials entry = verified.getIfPresent(getKey(number, deviceId));
+
+    if (entry != null && entry.matches(credentials, getTag(token))) {
+      hitMeter.mark();
+      return true;
+    }
+
+    missMeter.mark();
+    return false;
+  }
+
+  public void setVerified(String number, long deviceId, AuthenticationCredentials credentials, String token) {
+    verified.put(getKey(number, deviceId), new VerifiedCredentials(credentials, getTag(token)));
+  }
+
+  private long getTag(String token) {
+    return tagFunction.hashString(token, StandardCharsets.UTF_8).asLong();
+  }
+
+  private String getKey(String number, long deviceId) {
+    return number + "." + deviceId;
+  }
+
+  private static class VerifiedCredentials {
+
+    private final String hashedAuthenticationToken;
+    private final String salt;
+    private final long   tag;
+
+    private VerifiedCredentials(AuthenticationCredentials credentials, long tag) {
+      this.hashedAuthenticationToken = credentials.getHashedAuthenticationToken();
+      this.salt                      = credentials.getSalt();
+      this.tag                       = tag;
+    }
+
+    private boolean matches(AuthenticationCredentials credentials, long tag) {
+      return this.tag == tag &&
+             Objects.equals(hashedAuthenticationToken, credentials.getHashedAuthenticationToken()) &&
+             Objects.equals(salt, credentials.getSalt());
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package org.whispersystems.textsecuregcm.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Min;
+
+public class AccountCacheConfiguration {
+
+  @JsonProperty
+  private boolean enabled = true;
+
+  @JsonProperty
+  @Min(1)
+  private long maxSize = 100000;
+
+  @JsonProperty
+  @Min(1)
+  private int expireSeconds = 30;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public int getExpireSeconds() {
+    return expireSeconds;
+  }
+}
@@ -1,21 +1,30 @@
 package org.whispersystems.textsecuregcm.configuration;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.glassfish.jersey.server.JSONP;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
 
 public class MessageCacheConfiguration {
 
   @JsonProperty
-  @NotNull
   @Valid
   private RedisConfiguration redis;
 
+  @JsonProperty
+  @NotNull
+  @Valid
+  private List<MessageCacheShardConfiguration> shards = new LinkedList<>();
+
   @JsonProperty
   private int persistDelayMinutes = 10;
 
@@ -24,10 +33,53 @@ public class MessageCacheConfiguration {
   @Max(1)
   private float cacheRate = 1;
 
+  @JsonProperty
+  @Min(1)
+  private int persisterWorkers = 1;
+
+  @JsonProperty
+  @Min(1)
+  private int persistLeaseSeconds = 60;
+
+  @JsonProperty
+  @Min(1)
+  private int maxQueueSize = 10000;
+
+  @JsonProperty
+  @Min(1)
+  private int maxQueueBytes = 16 * 1024 * 1024;
+
+  @JsonProperty
+  @Min(0)
+  private int emptyQueueCacheSize = 1000000;
+
+  @JsonProperty
+  @Min(1)
+  private int emptyQueueCacheSeconds = 60;
+
   public RedisConfiguration getRedisConfiguration() {
     return redis;
   }
 
+  /**
+   * Either a single {@code redis} server, or a list of {@code shards} with
+   * explicit slot ranges. Queues written before slot tagging are read from
+   * the first shard until they have been persisted.
+   */
+  public List<MessageCacheShardConfiguration> getShardConfigurations() {
+    if (shards.isEmpty()) {
+      return Collections.singletonList(new MessageCacheShardConfiguration(redis));
+    }
+
+    return shards;
+  }
+
+  @JsonIgnore
+  @AssertTrue(message = "exactly one of redis or shards must be configured")
+  public boolean isShardConfigurationValid() {
+    return (redis == null) != shards.isEmpty();
+  }
+
   public int getPersistDelayMinutes() {
     return persistDelayMinutes;
   }
@@ -35,4 +87,28 @@ public class MessageCacheConfiguration {
   public float getCacheRate() {
     return cacheRate;
   }
+
+  public int getPersisterWorkers() {
+    return persisterWorkers;
+  }
+
+  public int getPersistLeaseSeconds() {
+    return persistLeaseSeconds;
+  }
+
+  public int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+  public int getMaxQueueBytes() {
+    return maxQueueBytes;
+  }
+
+  public int getEmptyQueueCacheSize() {
+    return emptyQueueCacheSize;
+  }
+
+  public int getEmptyQueueCacheSeconds() {
+    return emptyQueueCacheSeconds;
+  }
 }
@@ -0,0 +1,50 @@
+package org.whispersystems.textsecuregcm.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.LinkedList;
+import java.util.List;
+
+public class MessageCacheShardConfiguration {
+
+  @JsonProperty
+  @NotNull
+  @Valid
+  private RedisConfiguration redis;
+
+  /**
+   * Slot ranges ("0-127", "200") this shard owns. A shard that lists no
+   * slots owns all of them, which is only valid when it is the only shard.
+   */
+  @JsonProperty
+  @NotNull
+  private List<String> slots = new LinkedList<>();
+
+  /**
+   * Slot ranges that have moved to another shard, but may still hold queues
+   * here. They are read alongside the new owner and persisted without delay.
+   */
+  @JsonProperty
+  @NotNull
+  private List<String> drainingSlots = new LinkedList<>();
+
+  public MessageCacheShardConfiguration() {}
+
+  public MessageCacheShardConfiguration(RedisConfiguration redis) {
+    this.redis = redis;
+  }
+
+  public RedisConfiguration getRedisConfiguration() {
+    return redis;
+  }
+
+  public List<String> getSlots() {
+    return slots;
+  }
+
+  public List<String> getDrainingSlots() {
+    return drainingSlots;
+  }
+}
@@ -0,0 +1,47 @@
+package org.whispersystems.textsecuregcm.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Min;
+
+public class MessageRetentionConfiguration {
+
+  @JsonProperty
+  private boolean enabled = false;
+
+  @JsonProperty
+  @Min(1)
+  private int retentionDays = 60;
+
+  @JsonProperty
+  @Min(1)
+  private int batchSize = 1000;
+
+  @JsonProperty
+  @Min(1)
+  private int rowsPerSecond = 2000;
+
+  @JsonProperty
+  @Min(1)
+  private int intervalMinutes = 60;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getRetentionDays() {
+    return retentionDays;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public int getRowsPerSecond() {
+    return rowsPerSecond;
+  }
+
+  public int getIntervalMinutes() {
+    return intervalMinutes;
+  }
+}
@@ -223,7 +223,9 @@ public class AccountController {
     if (registrationId.isWebSocketChannel()) device.setFetchesMessages(true);
     else                                     device.setFetchesMessages(false);
 
-    accounts.update(account);
+    if (!accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
   }
 
   @Timed
@@ -233,7 +235,9 @@ public class AccountController {
     Device device = account.getAuthenticatedDevice().get();
     device.setGcmId(null);
     device.setFetchesMessages(false);
-    accounts.update(account);
+    if (!accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
   }
 
   @Timed
@@ -247,7 +251,9 @@ public class AccountController {
     device.setVoipApnId(registrationId.getVoipRegistrationId());
     device.setGcmId(null);
     device.setFetchesMessages(true);
-    accounts.update(account);
+    if (!accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
   }
 
   @Timed
@@ -258,7 +264,9 @@ public class AccountController {
     Device device = account.getAuthenticatedDevice().get();
     device.setApnId(null);
     device.setFetchesMessages(false);
-    accounts.update(account);
+    if (!accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
   }
 
   @Timed
@@ -268,7 +276,9 @@ public class AccountController {
   @ApiOperation(value="Set new PIN", notes="Set new PIN")
   public void setPin(@Auth Account account, @Valid RegistrationLock accountLock) {
     account.setPin(accountLock.getPin());
-    accounts.update(account);
+    if (!accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
   }
 
   @Timed
@@ -277,7 +287,9 @@ public class AccountController {
   @ApiOperation(value="Remove a PIN", notes="Remove a PIN")
   public void removePin(@Auth Account account) {
     account.setPin(null);
-    accounts.update(account);
+    if (!accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
   }
 
   @Timed
@@ -302,7 +314,9 @@ public class AccountController {
 
     account.setPin(attributes.getPin());
 
-    accounts.update(account);
+    if (!accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
   }
 
   @Timed
@@ -92,7 +92,11 @@ public class DeviceController {
     }
 
     account.removeDevice(deviceId);
-    accounts.update(account);
+
+    if (!accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
+
     messages.clear(account.getNumber(), deviceId);
   }
 
@@ -181,7 +185,10 @@ public class DeviceController {
 
       account.get().addDevice(device);
       messages.clear(account.get().getNumber(), device.getId());
-      accounts.update(account.get());
+
+      if (!accounts.update(account.get())) {
+        throw new WebApplicationException(Response.Status.CONFLICT);
+      }
 
       pendingDevices.remove(number);
 
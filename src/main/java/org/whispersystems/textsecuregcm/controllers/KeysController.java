@@ -43,18 +43,26 @@ public class KeysController {
 
   private static final Logger logger = LoggerFactory.getLogger(KeysController.class);
 
-  private final RateLimiters           rateLimiters;
-  private final Keys                   keys;
-  private final AccountsManager        accounts;
-  private final FederatedClientManager federatedClientManager;
+  private final RateLimiters            rateLimiters;
+  private final Keys                    keys;
+  private final AccountsManager         accounts;
+  private final FederatedClientManager  federatedClientManager;
+  private final Optional<ActivityStats> activityStats;
 
   public KeysController(RateLimiters rateLimiters, Keys keys, AccountsManager accounts,
                         FederatedClientManager federatedClientManager)
+  {
+    this(rateLimiters, keys, accounts, federatedClientManager, Optional.absent());
+  }
+
+  public KeysController(RateLimiters rateLimiters, Keys keys, AccountsManager accounts,
+                        FederatedClientManager federatedClientManager, Optional<ActivityStats> activityStats)
   {
     this.rateLimiters           = rateLimiters;
     this.keys                   = keys;
     this.accounts               = accounts;
     this.federatedClientManager = federatedClientManager;
+    this.activityStats          = activityStats;
   }
 
   @GET
@@ -78,7 +86,9 @@ public class KeysController {
     Device  device        = account.getAuthenticatedDevice().get();
     boolean updateAccount = false;
 
-    if (!preKeys.getSignedPreKey().equals(device.getSignedPreKey())) {
+    boolean updateSignedKey = !preKeys.getSignedPreKey().equals(device.getSignedPreKey());
+
+    if (updateSignedKey) {
       device.setSignedPreKey(preKeys.getSignedPreKey());
       updateAccount = true;
     }
@@ -88,8 +98,12 @@ public class KeysController {
       updateAccount = true;
     }
 
-    if (updateAccount) {
-      accounts.update(account);
+    if (updateAccount && !accounts.update(account)) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
+
+    if (updateSignedKey && activityStats.isPresent()) {
+      activityStats.get().onSignedKey(account.getNumber(), device);
     }
 
     keys.store(account.getNumber(), device.getId(), preKeys.getPreKeys());
@@ -153,8 +167,14 @@ public class KeysController {
   @Consumes(MediaType.APPLICATION_JSON)
   public void setSignedKey(@Auth Account account, @Valid SignedPreKey signedPreKey) {
     Device device = account.getAuthenticatedDevice().get();
-    device.setSignedPreKey(signedPreKey);
-    accounts.update(account);
+
+    if (!accounts.updateDevice(account, device.getId(), updated -> updated.setSignedPreKey(signedPreKey))) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
+
+    if (activityStats.isPresent()) {
+      activityStats.get().onSignedKey(account.getNumber(), device);
+    }
   }
 
   @Timed
@@ -34,6 +34,7 @@ import org.whispersystems.textsecuregcm.push.*;
 import org.whispersystems.textsecuregcm.redis.RedisOperation;
 import org.whispersystems.textsecuregcm.storage.*;
 import org.whispersystems.textsecuregcm.util.Base64;
+import org.whispersystems.textsecuregcm.util.Pair;
 import org.whispersystems.textsecuregcm.util.Util;
 import org.whispersystems.textsecuregcm.websocket.WebSocketConnection;
 
@@ -159,6 +160,56 @@ public class MessageController {
     }
   }
 
+  @Timed
+  @ApiOperation(value = "Remove pending messages in bulk", notes = "Remove pending messages in bulk")
+  @POST
+  @Path("/acknowledgements")
+  @Consumes(MediaType.APPLICATION_JSON)
+  public void removePendingMessages(@Auth   Account account,
+                                    @Valid  AcknowledgedMessageList acknowledgements)
+  {
+    List<Pair<String, Long>> senders = new LinkedList<>();
+
+    for (AcknowledgedMessage acknowledgement : acknowledgements.getMessages()) {
+      WebSocketConnection.messageTime.update(System.currentTimeMillis() - acknowledgement.getTimestamp());
+      senders.add(new Pair<>(acknowledgement.getSource(), acknowledgement.getTimestamp()));
+    }
+
+    List<OutgoingMessageEntity>           removed  = messagesManager.delete(account.getNumber(),
+                                                                            account.getAuthenticatedDevice().get().getId(),
+                                                                            senders);
+    Map<String, List<Long>>               receipts        = new HashMap<>();
+    Map<Pair<String, String>, List<Long>> relayedReceipts = new HashMap<>();
+
+    for (OutgoingMessageEntity message : removed) {
+      if (message.getType() == Envelope.Type.RECEIPT_VALUE) continue;
+
+      if (Util.isEmpty(message.getRelay())) {
+        receipts.computeIfAbsent(message.getSource(), source -> new LinkedList<>()).add(message.getTimestamp());
+      } else {
+        relayedReceipts.computeIfAbsent(new Pair<>(message.getSource(), message.getRelay()), destination -> new LinkedList<>())
+                       .add(message.getTimestamp());
+      }
+    }
+
+    if (!receipts.isEmpty()) {
+      receiptSender.sendReceipts(account, receipts);
+    }
+
+    for (Map.Entry<Pair<String, String>, List<Long>> receipt : relayedReceipts.entrySet()) {
+      try {
+        receiptSender.sendReceipts(account,
+                                   receipt.getKey().first(),
+                                   receipt.getValue(),
+                                   Optional.of(receipt.getKey().second()));
+      } catch (NotPushRegisteredException e) {
+        logger.info("User no longer push registered for delivery receipt: " + e.getMessage());
+      } catch (NoSuchUserException | TransientPushFailureException | IOException e) {
+        logger.warn("Sending delivery receipt", e);
+      }
+    }
+  }
+
 
   private void sendLocalMessage(Account source,
                                 String destinationName,
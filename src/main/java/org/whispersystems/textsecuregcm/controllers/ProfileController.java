@@ -27,6 +27,7 @@ import javax.ws.rs.core.Response;
 import java.security.SecureRandom;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Path("/v1/profile")
 @Api(value = "/v1/profile", description = "Profile controller")
@@ -93,8 +94,9 @@ public class ProfileController {
   @Path("/name/{name}")
   @ApiOperation(value = "Set profile", notes = "Set profile")
   public void setProfile(@Auth Account account, @PathParam("name") @UnwrapValidatedValue(true) @Length(min = 72,max= 72) Optional<String> name) {
-    account.setName(name.orNull());
-    accountsManager.update(account);
+    if (!accountsManager.updateProfile(account, updated -> updated.setName(name.orNull()))) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
+    }
   }
 
 
@@ -104,18 +106,25 @@ public class ProfileController {
   @Path("/form/avatar")
   @ApiOperation(value = "Get avatar upload form", notes = "Get avatar upload form")
   public ProfileAvatarUploadAttributes getAvatarUploadForm(@Auth Account account) {
-    String               previousAvatar = account.getAvatar();
-    ZonedDateTime        now            = ZonedDateTime.now(ZoneOffset.UTC);
-    String               objectName     = generateAvatarObjectName();
-    Pair<String, String> policy         = policyGenerator.createFor(now, objectName);
-    String               signature      = policySigner.getSignature(now, policy.second());
-
-    if (previousAvatar != null && previousAvatar.startsWith("profiles/")) {
-      s3client.deleteObject(bucket, previousAvatar);
+    AtomicReference<String> previousAvatar = new AtomicReference<>();
+    ZonedDateTime           now            = ZonedDateTime.now(ZoneOffset.UTC);
+    String                  objectName     = generateAvatarObjectName();
+    Pair<String, String>    policy         = policyGenerator.createFor(now, objectName);
+    String                  signature      = policySigner.getSignature(now, policy.second());
+
+    // The avatar being replaced is whichever one the successful attempt saw
+    boolean updated = accountsManager.updateProfile(account, current -> {
+      previousAvatar.set(current.getAvatar());
+      current.setAvatar(objectName);
+    });
+
+    if (!updated) {
+      throw new WebApplicationException(Response.Status.CONFLICT);
     }
 
-    account.setAvatar(objectName);
-    accountsManager.update(account);
+    if (previousAvatar.get() != null && previousAvatar.get().startsWith("profiles/")) {
+      s3client.deleteObject(bucket, previousAvatar.get());
+    }
 
     return new ProfileAvatarUploadAttributes(objectName, policy.first(), "private", "AWS4-HMAC-SHA256",
                                              now.format(PostPolicyGenerator.AWS_DATE_TIME), policy.second(), signature);
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2013 Open WhisperSystems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.whispersystems.textsecuregcm.entities;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class AcknowledgedMessageList {
+
+  @JsonProperty
+  @NotNull
+  @Valid
+  @Size(max = 100)
+  private List<AcknowledgedMessage> messages;
+
+  public AcknowledgedMessageList() {}
+
+  public AcknowledgedMessageList(List<AcknowledgedMessage> messages) {
+    this.messages = messages;
+  }
+
+  public List<AcknowledgedMessage> getMessages() {
+    return messages;
+  }
+}
@@ -42,21 +42,24 @@ public class EncryptedOutgoingMessage {
   private static final int    MAC_SIZE        = 10;
 
   private final byte[] serialized;
-  private final String serializedAndEncoded;
 
   public EncryptedOutgoingMessage(Envelope outgoingMessage, String signalingKey)
       throws CryptoEncodingException
   {
-    byte[]        plaintext  = outgoingMessage.toByteArray();
+    this(outgoingMessage.toByteArray(), signalingKey);
+  }
+
+  public EncryptedOutgoingMessage(byte[] serializedOutgoingMessage, String signalingKey)
+      throws CryptoEncodingException
+  {
     SecretKeySpec cipherKey  = getCipherKey (signalingKey);
     SecretKeySpec macKey     = getMacKey(signalingKey);
 
-    this.serialized           = getCiphertext(plaintext, cipherKey, macKey);
-    this.serializedAndEncoded = Base64.encodeBytes(this.serialized);
+    this.serialized = getCiphertext(serializedOutgoingMessage, cipherKey, macKey);
   }
 
   public String toEncodedString() {
-    return serializedAndEncoded;
+    return Base64.encodeBytes(serialized);
   }
 
   public byte[] toByteArray() {
@@ -2,15 +2,28 @@ package org.whispersystems.textsecuregcm.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.entities.MessageProtos.Envelope;
 
 public class OutgoingMessageEntity {
 
+  private static final Logger logger = LoggerFactory.getLogger(OutgoingMessageEntity.class);
+
   @JsonIgnore
   private long id;
 
   @JsonIgnore
   private boolean cached;
 
+  @JsonIgnore
+  private int cachedQueue;
+
+  @JsonIgnore
+  private byte[] envelope;
+
   @JsonProperty
   private int type;
 
@@ -49,31 +62,56 @@ public class OutgoingMessageEntity {
     this.content      = content;
   }
 
+  /**
+   * A cached message that is kept in its stored, serialized form. The envelope
+   * is only parsed if one of its fields is requested.
+   */
+  public OutgoingMessageEntity(long id, int cachedQueue, byte[] envelope) {
+    this.id          = id;
+    this.cached      = true;
+    this.cachedQueue = cachedQueue;
+    this.envelope    = envelope;
+  }
+
+  @JsonProperty
   public int getType() {
+    parseEnvelope();
     return type;
   }
 
+  @JsonProperty
   public String getRelay() {
+    parseEnvelope();
     return relay;
   }
 
+  @JsonProperty
   public long getTimestamp() {
+    parseEnvelope();
     return timestamp;
   }
 
+  @JsonProperty
   public String getSource() {
+    parseEnvelope();
     return source;
   }
 
+  @JsonProperty
   public int getSourceDevice() {
+    parseEnvelope();
     return sourceDevice;
   }
 
+  @JsonProperty
   public byte[] getMessage() {
+    parseEnvelope();
     return message;
   }
 
+  @JsonProperty
   public byte[] getContent() {
+    parseEnvelope();
     return content;
   }
 
@@ -87,4 +125,32 @@ public class OutgoingMessageEntity {
     return cached;
   }
 
+  @JsonIgnore
+  public int getCachedQueue() {
+    return cachedQueue;
+  }
+
+  @JsonIgnore
+  public Optional<byte[]> getSerializedEnvelope() {
+    return Optional.fromNullable(envelope);
+  }
+
+  private synchronized void parseEnvelope() {
+    if (envelope == null || source != null) return;
+
+    try {
+      Envelope parsed = Envelope.parseFrom(envelope);
+
+      this.type         = parsed.getType().getNumber();
+      this.relay        = parsed.getRelay();
+      this.timestamp    = parsed.getTimestamp();
+      this.sourceDevice = parsed.getSourceDevice();
+      this.message      = parsed.hasLegacyMessage() ? parsed.getLegacyMessage().toByteArray() : null;
+      this.content      = parsed.hasContent() ? parsed.getContent().toByteArray() : null;
+      this.source       = parsed.getSource();
+    } catch (InvalidProtocolBufferException e) {
+      logger.warn("Failed to parse envelope", e);
+      this.source = "";
+    }
+  }
 }
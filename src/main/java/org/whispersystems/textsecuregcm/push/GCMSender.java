@@ -110,11 +110,14 @@ public class GCMSender implements Managed {
     Optional<Account> account = getAccountForEvent(message);
 
     if (account.isPresent()) {
-      Device device = account.get().getDevice(message.getDeviceId()).get();
-      device.setGcmId(null);
-      device.setFetchesMessages(false);
+      boolean updated = accountsManager.updateDevice(account.get(), message.getDeviceId(), device -> {
+        device.setGcmId(null);
+        device.setFetchesMessages(false);
+      });
 
-      accountsManager.update(account.get());
+      if (!updated) {
+        logger.warn("Failed to clear unregistered GCM id for " + message.getNumber());
+      }
     }
 
     unregistered.mark();
@@ -128,10 +131,12 @@ public class GCMSender implements Managed {
     Optional<Account> account = getAccountForEvent(message);
 
     if (account.isPresent()) {
-      Device device = account.get().getDevice(message.getDeviceId()).get();
-      device.setGcmId(result.getCanonicalRegistrationId());
+      boolean updated = accountsManager.updateDevice(account.get(), message.getDeviceId(),
+                                                     device -> device.setGcmId(result.getCanonicalRegistrationId()));
 
-      accountsManager.update(account.get());
+      if (!updated) {
+        logger.warn("Failed to store canonical GCM id for " + message.getNumber());
+      }
     }
 
     canonical.mark();
@@ -1,6 +1,8 @@
 package org.whispersystems.textsecuregcm.push;
 
 import com.google.common.base.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.whispersystems.textsecuregcm.controllers.NoSuchUserException;
 import org.whispersystems.textsecuregcm.entities.MessageProtos.Envelope;
 import org.whispersystems.textsecuregcm.federation.FederatedClientManager;
@@ -10,10 +12,14 @@ import org.whispersystems.textsecuregcm.storage.AccountsManager;
 import org.whispersystems.textsecuregcm.storage.Device;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class ReceiptSender {
 
+  private static final Logger logger = LoggerFactory.getLogger(ReceiptSender.class);
+
   private final PushSender             pushSender;
   private final FederatedClientManager federatedClientManager;
   private final AccountsManager        accountManager;
@@ -43,6 +49,60 @@ public class ReceiptSender {
     }
   }
 
+  public void sendReceipts(Account source, String destination,
+                           List<Long> messageIds, Optional<String> relay)
+      throws IOException, NoSuchUserException,
+             NotPushRegisteredException, TransientPushFailureException
+  {
+    if (source.getNumber().equals(destination)) {
+      return;
+    }
+
+    if (relay.isPresent() && !relay.get().isEmpty()) {
+      for (long messageId : messageIds) {
+        sendRelayedReceipt(source, destination, messageId, relay.get());
+      }
+    } else {
+      Account destinationAccount = getDestinationAccount(destination);
+
+      for (long messageId : messageIds) {
+        sendDirectReceipt(source, destinationAccount, messageId);
+      }
+    }
+  }
+
+  /**
+   * Sends direct receipts to several destinations, resolving all of their
+   * accounts in a single lookup. A failure for one destination doesn't stop
+   * the others.
+   */
+  public void sendReceipts(Account source, Map<String, List<Long>> messageIds) {
+    Map<String, Account> destinations = accountManager.getAll(messageIds.keySet());
+
+    for (Map.Entry<String, List<Long>> receipts : messageIds.entrySet()) {
+      if (source.getNumber().equals(receipts.getKey())) {
+        continue;
+      }
+
+      Account destinationAccount = destinations.get(receipts.getKey());
+
+      if (destinationAccount == null) {
+        logger.info("No such user for delivery receipt: " + receipts.getKey());
+        continue;
+      }
+
+      try {
+        for (long messageId : receipts.getValue()) {
+          sendDirectReceipt(source, destinationAccount, messageId);
+        }
+      } catch (NotPushRegisteredException e) {
+        logger.info("User no longer push registered for delivery receipt: " + e.getMessage());
+      } catch (TransientPushFailureException e) {
+        logger.warn("Sending delivery receipt", e);
+      }
+    }
+  }
+
   private void sendRelayedReceipt(Account source, String destination, long messageId, String relay)
       throws NoSuchUserException, IOException
   {
@@ -59,7 +119,12 @@ public class ReceiptSender {
   private void sendDirectReceipt(Account source, String destination, long messageId)
       throws NotPushRegisteredException, TransientPushFailureException, NoSuchUserException
   {
-    Account          destinationAccount = getDestinationAccount(destination);
+    sendDirectReceipt(source, getDestinationAccount(destination), messageId);
+  }
+
+  private void sendDirectReceipt(Account source, Account destinationAccount, long messageId)
+      throws NotPushRegisteredException, TransientPushFailureException
+  {
     Set<Device>      destinationDevices = destinationAccount.getDevices();
     Envelope.Builder message            = Envelope.newBuilder()
                                                   .setSource(source.getNumber())
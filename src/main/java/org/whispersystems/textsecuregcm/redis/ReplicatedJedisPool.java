@@ -53,4 +53,12 @@ public class ReplicatedJedisPool {
     throw new JedisException("All read replica pools failed!");
   }
 
+  public void close() {
+    master.close();
+
+    for (JedisPool replica : replicas) {
+      replica.close();
+    }
+  }
+
 }
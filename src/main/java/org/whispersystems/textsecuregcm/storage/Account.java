@@ -70,6 +70,9 @@ public class Account {
   @JsonProperty
   private BigDecimal balance;
 
+  @JsonIgnore
+  private long version;
+
   public Account() {}
 
   @VisibleForTesting
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2013 Open WhisperSystems
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.whispersystems.textsecuregcm.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.whispersystems.textsecuregcm.auth.AuthenticationCredentials;
+import org.whispersystems.textsecuregcm.entities.SignedPreKey;
+import org.whispersystems.textsecuregcm.storage.AccountProtos.CachedAccount;
+import org.whispersystems.textsecuregcm.storage.AccountProtos.CachedDevice;
+import org.whispersystems.textsecuregcm.storage.AccountProtos.CachedSignedPreKey;
+import org.whispersystems.textsecuregcm.util.SystemMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Encodes cached accounts as a {@link CachedAccount} protobuf, behind a
+ * single format byte. Values that don't start with that byte are JSON
+ * written by earlier versions, and are still readable.
+ */
+public class AccountCodec {
+
+  private static final byte BINARY_V1 = 0x01;
+
+  private static final ObjectMapper mapper = SystemMapper.getMapper();
+
+  public static byte[] encode(Account account) {
+    CachedAccount.Builder builder = CachedAccount.newBuilder();
+
+    if (account.getNumber()            != null) builder.setNumber(account.getNumber());
+    if (account.getIdentityKey()       != null) builder.setIdentityKey(account.getIdentityKey());
+    if (account.getName()              != null) builder.setName(account.getName());
+    if (account.getAvatar()            != null) builder.setAvatar(account.getAvatar());
+    if (account.getAvatarDigest()      != null) builder.setAvatarDigest(account.getAvatarDigest());
+    if (account.getPin().isPresent())           builder.setPin(account.getPin().get());
+    if (account.getSecondPhoneNumber() != null) builder.setSecondPhoneNumber(account.getSecondPhoneNumber());
+    if (account.getPhoneBuyDate()      != null) builder.setPhoneBuyDate(account.getPhoneBuyDate().getTime());
+    if (account.getPhonePrice()        != null) builder.setPhonePrice(account.getPhonePrice().toString());
+    if (account.getBalance()           != null) builder.setBalance(account.getBalance().toString());
+    if (account.getVersion()           != 0)    builder.setVersion(account.getVersion());
+
+    for (Device device : account.getDevices()) {
+      builder.addDevices(encodeDevice(device));
+    }
+
+    byte[] message    = builder.build().toByteArray();
+    byte[] serialized = new byte[message.length + 1];
+
+    serialized[0] = BINARY_V1;
+    System.arraycopy(message, 0, serialized, 1, message.length);
+
+    return serialized;
+  }
+
+  public static Account decode(byte[] serialized) throws IOException {
+    if (serialized.length == 0 || serialized[0] != BINARY_V1) {
+      return mapper.readValue(serialized, Account.class);
+    }
+
+    CachedAccount cached  = CachedAccount.PARSER.parseFrom(serialized, 1, serialized.length - 1);
+    Account       account = new Account();
+
+    if (cached.hasNumber())            account.setNumber(cached.getNumber());
+    if (cached.hasIdentityKey())       account.setIdentityKey(cached.getIdentityKey());
+    if (cached.hasName())              account.setName(cached.getName());
+    if (cached.hasAvatar())            account.setAvatar(cached.getAvatar());
+    if (cached.hasAvatarDigest())      account.setAvatarDigest(cached.getAvatarDigest());
+    if (cached.hasPin())               account.setPin(cached.getPin());
+    if (cached.hasSecondPhoneNumber()) account.setSecondPhoneNumber(cached.getSecondPhoneNumber());
+    if (cached.hasPhoneBuyDate())      account.setPhoneBuyDate(new Date(cached.getPhoneBuyDate()));
+    if (cached.hasPhonePrice())        account.setPhonePrice(new BigDecimal(cached.getPhonePrice()));
+    if (cached.hasBalance())           account.setBalance(new BigDecimal(cached.getBalance()));
+
+    account.setVersion(cached.getVersion());
+
+    for (CachedDevice device : cached.getDevicesList()) {
+      account.addDevice(decodeDevice(device));
+    }
+
+    return account;
+  }
+
+  private static CachedDevice encodeDevice(Device device) {
+    CachedDevice.Builder      builder     = CachedDevice.newBuilder();
+    AuthenticationCredentials credentials = device.getAuthenticationCredentials();
+
+    builder.setId(device.getId());
+
+    if (device.getName()                           != null) builder.setName(device.getName());
+    if (credentials.getHashedAuthenticationToken() != null) builder.setAuthToken(credentials.getHashedAuthenticationToken());
+    if (credentials.getSalt()                      != null) builder.setSalt(credentials.getSalt());
+    if (device.getSignalingKey()                   != null) builder.setSignalingKey(device.getSignalingKey());
+    if (device.getGcmId()                          != null) builder.setGcmId(device.getGcmId());
+    if (device.getApnId()                          != null) builder.setApnId(device.getApnId());
+    if (device.getVoipApnId()                      != null) builder.setVoipApnId(device.getVoipApnId());
+    if (device.getSignedPreKey()                   != null) builder.setSignedPreKey(encodeSignedPreKey(device.getSignedPreKey()));
+    if (device.getUserAgent()                      != null) builder.setUserAgent(device.getUserAgent());
+
+    if (device.getPushTimestamp()  != 0) builder.setPushTimestamp(device.getPushTimestamp());
+    if (device.getRegistrationId() != 0) builder.setRegistrationId(device.getRegistrationId());
+    if (device.getLastSeen()       != 0) builder.setLastSeen(device.getLastSeen());
+    if (device.getCreated()        != 0) builder.setCreated(device.getCreated());
+
+    if (device.getFetchesMessages()) builder.setFetchesMessages(true);
+    if (device.isVoiceSupported())   builder.setVoice(true);
+    if (device.isVideoSupported())   builder.setVideo(true);
+
+    return builder.build();
+  }
+
+  private static Device decodeDevice(CachedDevice cached) {
+    Device device = new Device(cached.getId(),
+                               cached.hasName()         ? cached.getName()         : null,
+                               cached.hasAuthToken()    ? cached.getAuthToken()    : null,
+                               cached.hasSalt()         ? cached.getSalt()         : null,
+                               cached.hasSignalingKey() ? cached.getSignalingKey() : null,
+                               cached.hasGcmId()        ? cached.getGcmId()        : null,
+                               cached.hasApnId()        ? cached.getApnId()        : null,
+                               cached.hasVoipApnId()    ? cached.getVoipApnId()    : null,
+                               cached.getFetchesMessages(),
+                               cached.getRegistrationId(),
+                               cached.hasSignedPreKey() ? decodeSignedPreKey(cached.getSignedPreKey()) : null,
+                               cached.getLastSeen(),
+                               cached.getCreated(),
+                               cached.getVoice(),
+                               cached.getVideo(),
+                               cached.hasUserAgent()    ? cached.getUserAgent()    : null);
+
+    device.setPushTimestamp(cached.getPushTimestamp());
+
+    return device;
+  }
+
+  private static CachedSignedPreKey encodeSignedPreKey(SignedPreKey signedPreKey) {
+    CachedSignedPreKey.Builder builder = CachedSignedPreKey.newBuilder();
+
+    builder.setKeyId(signedPreKey.getKeyId());
+
+    if (signedPreKey.getPublicKey() != null) builder.setPublicKey(signedPreKey.getPublicKey());
+    if (signedPreKey.getSignature() != null) builder.setSignature(signedPreKey.getSignature());
+
+    return builder.build();
+  }
+
+  private static SignedPreKey decodeSignedPreKey(CachedSignedPreKey cached) {
+    return new SignedPreKey(cached.getKeyId(),
+                            cached.hasPublicKey() ? cached.getPublicKey() : null,
+                            cached.hasSignature() ? cached.getSignature() : null);
+  }
+}
@@ -26,10 +26,12 @@ import org.skife.jdbi.v2.sqlobject.Binder;
 import org.skife.jdbi.v2.sqlobject.BinderFactory;
 import org.skife.jdbi.v2.sqlobject.BindingAnnotation;
 import org.skife.jdbi.v2.sqlobject.GetGeneratedKeys;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.Transaction;
 import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
+import org.skife.jdbi.v2.tweak.Argument;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 import org.whispersystems.textsecuregcm.util.SystemMapper;
 
@@ -41,30 +43,68 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
 public abstract class Accounts {
 
-  private static final String ID     = "id";
-  private static final String NUMBER = "number";
-  private static final String DATA   = "data";
+  private static final String ID      = "id";
+  private static final String NUMBER  = "number";
+  private static final String DATA    = "data";
+  private static final String VERSION = "version";
 
   private static final ObjectMapper mapper = SystemMapper.getMapper();
 
-  @SqlUpdate("INSERT INTO accounts (" + NUMBER + ", " + DATA + ") VALUES (:number, CAST(:data AS json))")
+  @SqlUpdate("INSERT INTO accounts (" + NUMBER + ", " + DATA + ", " + VERSION + ") VALUES (:number, CAST(:data AS jsonb), :version)")
   abstract void insertStep(@AccountBinder Account account);
 
   @SqlUpdate("DELETE FROM accounts WHERE " + NUMBER + " = :number")
   abstract int removeAccount(@Bind("number") String number);
 
-  @SqlUpdate("UPDATE accounts SET " + DATA + " = CAST(:data AS json) WHERE " + NUMBER + " = :number")
-  abstract void update(@AccountBinder Account account);
+  @SqlQuery("SELECT " + VERSION + " FROM accounts WHERE " + NUMBER + " = :number")
+  abstract Long getVersion(@Bind("number") String number);
+
+  @SqlUpdate("UPDATE accounts SET " + DATA + " = CAST(:data AS jsonb), " + VERSION + " = " + VERSION + " + 1 " +
+             "WHERE " + NUMBER + " = :number AND " + VERSION + " = :version")
+  abstract int update(@AccountBinder Account account);
+
+  @SqlUpdate("UPDATE accounts SET " + DATA + " = jsonb_set(" + DATA + ", '{devices}', " +
+             "(SELECT jsonb_agg(CASE WHEN device ->> 'id' = CAST(:device_id AS text) THEN CAST(:device AS jsonb) ELSE device END ORDER BY position) " +
+             "FROM jsonb_array_elements(" + DATA + " -> 'devices') WITH ORDINALITY AS devices(device, position))), " +
+             VERSION + " = " + VERSION + " + 1 " +
+             "WHERE " + NUMBER + " = :number AND " + VERSION + " = :version AND EXISTS (SELECT 1 FROM jsonb_array_elements(" + DATA + " -> 'devices') device " +
+             "WHERE device ->> 'id' = CAST(:device_id AS text))")
+  abstract int updateDevice(@Bind("number") String number, @Bind("version") long version,
+                            @Bind("device_id") long deviceId, @Bind("device") String device);
+
+  @SqlUpdate("UPDATE accounts SET " + DATA + " = " + DATA + " || jsonb_build_object('name', CAST(:name AS text), 'avatar', CAST(:avatar AS text), 'avatarDigest', CAST(:avatar_digest AS text)), " +
+             VERSION + " = " + VERSION + " + 1 " +
+             "WHERE " + NUMBER + " = :number AND " + VERSION + " = :version")
+  abstract int updateProfile(@Bind("number") String number, @Bind("version") long version, @Bind("name") String name,
+                             @Bind("avatar") String avatar, @Bind("avatar_digest") String avatarDigest);
+
+  // Rewrites only the matching device's lastSeen, and only if it moves forward. The
+  // version is left alone: lastSeen only ever advances, so it never conflicts, and
+  // cached copies patched with the same value stay in step with the row.
+  @SqlBatch("UPDATE accounts SET " + DATA + " = jsonb_set(" + DATA + ", '{devices}', " +
+            "(SELECT jsonb_agg(CASE WHEN device ->> 'id' = CAST(:device_id AS text) " +
+            "THEN jsonb_set(device, '{lastSeen}', to_jsonb(CAST(:last_seen AS bigint))) ELSE device END ORDER BY position) " +
+            "FROM jsonb_array_elements(" + DATA + " -> 'devices') WITH ORDINALITY AS devices(device, position))) " +
+            "WHERE " + NUMBER + " = :number AND EXISTS (SELECT 1 FROM jsonb_array_elements(" + DATA + " -> 'devices') device " +
+            "WHERE device ->> 'id' = CAST(:device_id AS text) AND COALESCE(CAST(device ->> 'lastSeen' AS bigint), 0) < :last_seen)")
+  abstract void setLastSeen(@Bind("number") List<String> numbers,
+                            @Bind("device_id") List<Long> deviceIds,
+                            @Bind("last_seen") List<Long> lastSeens);
 
   @Mapper(AccountMapper.class)
   @SqlQuery("SELECT * FROM accounts WHERE " + NUMBER + " = :number")
   abstract Account get(@Bind("number") String number);
 
+  @Mapper(AccountMapper.class)
+  @SqlQuery("SELECT * FROM accounts WHERE " + NUMBER + " = ANY(:numbers)")
+  abstract List<Account> getAll(@NumbersBinder Collection<String> numbers);
+
   @SqlQuery("SELECT COUNT(DISTINCT " + NUMBER + ") from accounts")
   abstract long getCount();
 
@@ -72,22 +112,30 @@ public abstract class Accounts {
   @SqlQuery("SELECT * FROM accounts OFFSET :offset LIMIT :limit")
   abstract List<Account> getAll(@Bind("offset") int offset, @Bind("limit") int length);
 
+  @Mapper(AccountMapper.class)
+  @SqlQuery("SELECT * FROM accounts WHERE " + NUMBER + " > :number ORDER BY " + NUMBER + " LIMIT :limit")
+  abstract List<Account> getAllFrom(@Bind("number") String afterNumber, @Bind("limit") int length);
+
   @Mapper(AccountMapper.class)
   @SqlQuery("SELECT * FROM accounts")
   public abstract Iterator<Account> getAll();
 
-  @SqlQuery("SELECT COUNT(*) FROM accounts a, json_array_elements(a.data->'devices') devices WHERE devices->>'id' = '1' AND (devices->>'gcmId') is not null AND (devices->>'lastSeen')\\:\\:bigint >= :since")
+  @SqlQuery("SELECT COUNT(*) FROM accounts a, jsonb_array_elements(a.data->'devices') devices WHERE devices->>'id' = '1' AND (devices->>'gcmId') is not null AND (devices->>'lastSeen')\\:\\:bigint >= :since")
   public abstract int getAndroidActiveSinceCount(@Bind("since") long since);
 
-  @SqlQuery("SELECT COUNT(*) FROM accounts a, json_array_elements(a.data->'devices') devices WHERE devices->>'id' = '1' AND (devices->>'apnId') is not null AND (devices->>'lastSeen')\\:\\:bigint >= :since")
+  @SqlQuery("SELECT COUNT(*) FROM accounts a, jsonb_array_elements(a.data->'devices') devices WHERE devices->>'id' = '1' AND (devices->>'apnId') is not null AND (devices->>'lastSeen')\\:\\:bigint >= :since")
   public abstract int getIosActiveSinceCount(@Bind("since") long since);
 
-  @SqlQuery("SELECT count(*) FROM accounts a, json_array_elements(a.data->'devices') devices WHERE devices->>'id' = '1' AND (devices->>'lastSeen')\\:\\:bigint >= :since AND (devices->>'signedPreKey') is null AND (devices->>'gcmId') is not null")
+  @SqlQuery("SELECT count(*) FROM accounts a, jsonb_array_elements(a.data->'devices') devices WHERE devices->>'id' = '1' AND (devices->>'lastSeen')\\:\\:bigint >= :since AND (devices->>'signedPreKey') is null AND (devices->>'gcmId') is not null")
   public abstract int getUnsignedKeysCount(@Bind("since") long since);
 
   @Transaction(TransactionIsolationLevel.SERIALIZABLE)
   public boolean create(Account account) {
-    int rows = removeAccount(account.getNumber());
+    // Versions keep counting across re-registration, so a copy of the old account never matches the new one
+    Long version = getVersion(account.getNumber());
+    int  rows    = removeAccount(account.getNumber());
+
+    account.setVersion(version == null ? 0 : version + 1);
     insertStep(account);
 
     return rows == 0;
@@ -104,6 +152,7 @@ public abstract class Accounts {
       try {
         Account account = mapper.readValue(resultSet.getString(DATA), Account.class);
 //        account.setId(resultSet.getLong(ID));
+        account.setVersion(resultSet.getLong(VERSION));
 
         return account;
       } catch (IOException e) {
@@ -130,6 +179,7 @@ public abstract class Accounts {
 
               sql.bind(NUMBER, account.getNumber());
               sql.bind(DATA, serialized);
+              sql.bind(VERSION, account.getVersion());
             } catch (JsonProcessingException e) {
               throw new IllegalArgumentException(e);
             }
@@ -139,4 +189,26 @@ public abstract class Accounts {
     }
   }
 
+  @BindingAnnotation(NumbersBinder.NumbersBinderFactory.class)
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ElementType.PARAMETER})
+  public @interface NumbersBinder {
+    public static class NumbersBinderFactory implements BinderFactory {
+      @Override
+      public Binder build(Annotation annotation) {
+        return new Binder<NumbersBinder, Collection<String>>() {
+          @Override
+          public void bind(SQLStatement<?> sql,
+                           NumbersBinder numbersBinder,
+                           Collection<String> numbers)
+          {
+            String[] array = numbers.toArray(new String[0]);
+
+            sql.bind("numbers", (Argument)(position, statement, context) -> statement.setArray(position, statement.getConnection().createArrayOf("text", array)));
+          }
+        };
+      }
+    }
+  }
+
 }
@@ -17,36 +17,75 @@
 package org.whispersystems.textsecuregcm.storage;
 
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.whispersystems.textsecuregcm.entities.ClientContact;
 import org.whispersystems.textsecuregcm.redis.ReplicatedJedisPool;
+import org.whispersystems.textsecuregcm.util.Constants;
 import org.whispersystems.textsecuregcm.util.SystemMapper;
 import org.whispersystems.textsecuregcm.util.Util;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import static com.codahale.metrics.MetricRegistry.name;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
 
 public class AccountsManager {
 
+  private static final MetricRegistry metricRegistry    = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+  private static final Meter          replicaReadMeter  = metricRegistry.meter(name(AccountsManager.class, "replicaRead" ));
+  private static final Meter          primaryReadMeter  = metricRegistry.meter(name(AccountsManager.class, "primaryRead" ));
+  private static final Meter          conflictMeter     = metricRegistry.meter(name(AccountsManager.class, "conflict"    ));
+  private static final Meter          lastSeenRaceMeter = metricRegistry.meter(name(AccountsManager.class, "lastSeenRace"));
+
+  private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+  // Entries read from a replica may trail the primary, so they never replace
+  // an existing entry and expire on their own
+  private static final int REPLICA_CACHE_SECONDS = (int)TimeUnit.MINUTES.toSeconds(10);
+
   private final Logger logger = LoggerFactory.getLogger(AccountsManager.class);
 
-  private final Accounts            accounts;
+  private final Accounts                    accounts;
+  private final Accounts                    replicaAccounts;
+  private final Optional<ReplicaLagMonitor> replicaLagMonitor;
+  private final Optional<LocalAccountCache> localCache;
   private final ReplicatedJedisPool cacheClient;
   private final DirectoryManager    directory;
-  private final ObjectMapper        mapper;
 
   public AccountsManager(Accounts accounts, DirectoryManager directory, ReplicatedJedisPool cacheClient) {
-    this.accounts    = accounts;
-    this.directory   = directory;
-    this.cacheClient = cacheClient;
-    this.mapper      = SystemMapper.getMapper();
+    this(accounts, accounts, Optional.absent(), Optional.absent(), directory, cacheClient);
+  }
+
+  public AccountsManager(Accounts accounts, Accounts replicaAccounts, Optional<ReplicaLagMonitor> replicaLagMonitor,
+                         Optional<LocalAccountCache> localCache, DirectoryManager directory,
+                         ReplicatedJedisPool cacheClient)
+  {
+    this.accounts          = accounts;
+    this.replicaAccounts   = replicaAccounts;
+    this.replicaLagMonitor = replicaLagMonitor;
+    this.localCache        = localCache;
+    this.directory         = directory;
+    this.cacheClient       = cacheClient;
   }
 
   public long getCount() {
@@ -57,6 +96,13 @@ public class AccountsManager {
     return accounts.getAll(offset, length);
   }
 
+  /**
+   * @return Up to length accounts, in number order, whose numbers sort after afterNumber.
+   */
+  public List<Account> getAllFrom(String afterNumber, int length) {
+    return accounts.getAllFrom(afterNumber, length);
+  }
+
   public Iterator<Account> getAll() {
     return accounts.getAll();
   }
@@ -64,31 +110,259 @@ public class AccountsManager {
   public boolean create(Account account) {
     boolean freshUser = accounts.create(account);
     memcacheSet(account.getNumber(), account);
+
+    // A number that didn't exist can't be cached on any node
+    if (!freshUser) {
+      localInvalidate(account.getNumber());
+    }
+
     updateDirectory(account);
 
     return freshUser;
   }
 
-  public void update(Account account) {
+  /**
+   * Writes back the whole account, provided nobody else has written it since
+   * this copy was read. A conflicting copy can't be merged, so the caller has
+   * to start again from a fresh read. The caches are left alone: the winning
+   * write already replaced them, and evicting its copy would let the next miss
+   * refill them from a replica that may not have it yet.
+   *
+   * @return false if another writer changed the account first.
+   */
+  public boolean update(Account account) {
+    if (accounts.update(account) == 0) {
+      conflictMeter.mark();
+      return false;
+    }
+
+    onUpdated(account);
+    return true;
+  }
+
+  /**
+   * Applies updater to one device and writes back only that device. If another
+   * writer changed the account first, the update is retried against a fresh copy.
+   *
+   * @return false if the device doesn't exist, or the update kept conflicting.
+   */
+  public boolean updateDevice(Account account, long deviceId, Consumer<Device> updater) {
+    for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+      Optional<Device> device = account.getDevice(deviceId);
+
+      if (!device.isPresent()) {
+        return false;
+      }
+
+      updater.accept(device.get());
+
+      if (accounts.updateDevice(account.getNumber(), account.getVersion(), deviceId, serialize(device.get())) > 0) {
+        onUpdated(account);
+        return true;
+      }
+
+      conflictMeter.mark();
+
+      if ((account = accounts.get(account.getNumber())) == null) {
+        return false;
+      }
+    }
+
+    logger.warn("Gave up updating device " + deviceId + " after " + MAX_UPDATE_ATTEMPTS + " conflicts");
+    return false;
+  }
+
+  /**
+   * Applies updater to an account and writes back only its profile fields,
+   * retrying against a fresh copy on conflict.
+   *
+   * @return false if the account doesn't exist, or the update kept conflicting.
+   */
+  public boolean updateProfile(Account account, Consumer<Account> updater) {
+    for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+      updater.accept(account);
+
+      if (accounts.updateProfile(account.getNumber(), account.getVersion(), account.getName(),
+                                 account.getAvatar(), account.getAvatarDigest()) > 0)
+      {
+        onUpdated(account);
+        return true;
+      }
+
+      conflictMeter.mark();
+
+      if ((account = accounts.get(account.getNumber())) == null) {
+        return false;
+      }
+    }
+
+    logger.warn("Gave up updating profile after " + MAX_UPDATE_ATTEMPTS + " conflicts");
+    return false;
+  }
+
+  private void onUpdated(Account account) {
+    // The version check passed, so this copy plus the update is exactly what's
+    // stored, and the row's version moved on by exactly one
+    account.setVersion(account.getVersion() + 1);
     memcacheSet(account.getNumber(), account);
-    accounts.update(account);
+    localInvalidate(account.getNumber());
     updateDirectory(account);
   }
 
+  private String serialize(Device device) {
+    try {
+      return SystemMapper.getMapper().writeValueAsString(device);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Moves each listed device's lastSeen forward, without rewriting the rest of its account.
+   */
+  public void setLastSeen(List<String> numbers, List<Long> deviceIds, List<Long> lastSeens) {
+    accounts.setLastSeen(numbers, deviceIds, lastSeens);
+    memcacheSetLastSeen(numbers, deviceIds, lastSeens);
+
+    // Other nodes pick up the patched copy once their own entries expire
+    if (localCache.isPresent()) {
+      for (String number : numbers) {
+        localCache.get().invalidateLocal(number);
+      }
+    }
+  }
+
+  /**
+   * Looks up several accounts at once: one read of the shared cache for all of
+   * them, one query for the cache misses, and one pipelined write to backfill.
+   *
+   * @return The accounts that exist, by number.
+   */
+  public Map<String, Account> getAll(Collection<String> numbers) {
+    Map<String, Account> results  = new HashMap<>();
+    Map<String, Long>    versions = new HashMap<>();
+    Set<String>          missing  = new HashSet<>(numbers);
+
+    if (localCache.isPresent()) {
+      Iterator<String> iterator = missing.iterator();
+
+      while (iterator.hasNext()) {
+        String            number  = iterator.next();
+        Optional<Account> account = localGet(number);
+
+        if (account.isPresent()) {
+          results.put(number, account.get());
+          iterator.remove();
+        } else {
+          versions.put(number, localCache.get().getVersion(number));
+        }
+      }
+    }
+
+    Map<String, Account> fetched = memcacheGetAll(missing);
+    missing.removeAll(fetched.keySet());
+
+    Map<String, Account> fromReplica = new HashMap<>();
+    Map<String, Account> fromPrimary = new HashMap<>();
+
+    if (!missing.isEmpty() && replicaLagMonitor.isPresent() && replicaLagMonitor.get().isAvailable()) {
+      fromReplica = replicaGetAll(missing);
+      missing.removeAll(fromReplica.keySet());
+      replicaReadMeter.mark(fromReplica.size());
+    }
+
+    if (!missing.isEmpty()) {
+      for (Account account : accounts.getAll(missing)) {
+        fromPrimary.put(account.getNumber(), account);
+      }
+
+      primaryReadMeter.mark(missing.size());
+    }
+
+    memcacheSetAll(fromPrimary, fromReplica);
+
+    fetched.putAll(fromReplica);
+    fetched.putAll(fromPrimary);
+
+    if (localCache.isPresent()) {
+      for (Account account : fetched.values()) {
+        localSet(account.getNumber(), account, versions.get(account.getNumber()));
+      }
+    }
+
+    results.putAll(fetched);
+    return results;
+  }
+
   public Optional<Account> get(String number) {
+    if (!localCache.isPresent()) {
+      return sharedGet(number);
+    }
+
+    Optional<Account> account = localGet(number);
+
+    if (!account.isPresent()) {
+      long version = localCache.get().getVersion(number);
+
+      account = sharedGet(number);
+
+      if (account.isPresent()) {
+        localSet(number, account.get(), version);
+      }
+    }
+
+    return account;
+  }
+
+  private Optional<Account> sharedGet(String number) {
     Optional<Account> account = memcacheGet(number);
 
+    if (!account.isPresent() && replicaLagMonitor.isPresent() && replicaLagMonitor.get().isAvailable()) {
+      account = replicaGet(number);
+
+      if (account.isPresent()) {
+        memcacheSetIfAbsent(number, account.get(), REPLICA_CACHE_SECONDS);
+        replicaReadMeter.mark();
+      }
+    }
+
+    // An account missing from the replica may just not have replicated yet
     if (!account.isPresent()) {
       account = Optional.fromNullable(accounts.get(number));
 
       if (account.isPresent()) {
         memcacheSet(number, account.get());
       }
+
+      primaryReadMeter.mark();
     }
 
     return account;
   }
 
+  private Map<String, Account> replicaGetAll(Collection<String> numbers) {
+    Map<String, Account> results = new HashMap<>();
+
+    try {
+      for (Account account : replicaAccounts.getAll(numbers)) {
+        results.put(account.getNumber(), account);
+      }
+    } catch (Exception e) {
+      logger.warn("Replica read failed", e);
+    }
+
+    return results;
+  }
+
+  private Optional<Account> replicaGet(String number) {
+    try {
+      return Optional.fromNullable(replicaAccounts.get(number));
+    } catch (Exception e) {
+      logger.warn("Replica read failed", e);
+      return Optional.absent();
+    }
+  }
+
   public boolean isRelayListed(String number) {
     byte[]                  token   = Util.getContactToken(number);
     Optional<ClientContact> contact = directory.get(token);
@@ -106,24 +380,175 @@ public class AccountsManager {
     }
   }
 
-  private String getKey(String number) {
-    return Account.class.getSimpleName() + Account.MEMCACHE_VERION + number;
+  private byte[] getKey(String number) {
+    return (Account.class.getSimpleName() + Account.MEMCACHE_VERION + number).getBytes();
   }
 
   private void memcacheSet(String number, Account account) {
     try (Jedis jedis = cacheClient.getWriteResource()) {
-      jedis.set(getKey(number), mapper.writeValueAsString(account));
-    } catch (JsonProcessingException e) {
-      throw new IllegalArgumentException(e);
+      jedis.set(getKey(number), AccountCodec.encode(account));
+    }
+  }
+
+  // Patches lastSeen into the cached copies rather than evicting them. The keys
+  // are watched, so if any account is rewritten in the meantime the whole batch
+  // is dropped, and the next sighting of those devices repairs the cache.
+  private void memcacheSetLastSeen(List<String> numbers, List<Long> deviceIds, List<Long> lastSeens) {
+    List<String> distinct = new ArrayList<>(new LinkedHashSet<>(numbers));
+    byte[][]     keys     = new byte[distinct.size()][];
+
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = getKey(distinct.get(i));
+    }
+
+    try (Jedis jedis = cacheClient.getWriteResource()) {
+      jedis.watch(keys);
+
+      Pipeline               pipeline = jedis.pipelined();
+      Response<List<byte[]>> values   = pipeline.mget(keys);
+      List<Response<Long>>   ttls     = new ArrayList<>(keys.length);
+
+      for (byte[] key : keys) {
+        ttls.add(pipeline.ttl(key));
+      }
+
+      pipeline.sync();
+
+      Map<String, Account> cached = new HashMap<>();
+      Map<String, Long>    expiry = new HashMap<>();
+
+      for (int i = 0; i < keys.length; i++) {
+        byte[] value = values.get().get(i);
+
+        if (value == null) continue;
+
+        try {
+          cached.put(distinct.get(i), AccountCodec.decode(value));
+          expiry.put(distinct.get(i), ttls.get(i).get());
+        } catch (IOException e) {
+          logger.warn("AccountsManager", "Deserialization error", e);
+        }
+      }
+
+      for (int i = 0; i < numbers.size(); i++) {
+        Account account = cached.get(numbers.get(i));
+
+        if (account == null) continue;
+
+        Optional<Device> device = account.getDevice(deviceIds.get(i));
+
+        if (device.isPresent() && device.get().getLastSeen() < lastSeens.get(i)) {
+          device.get().setLastSeen(lastSeens.get(i));
+        }
+      }
+
+      if (cached.isEmpty()) {
+        jedis.unwatch();
+        return;
+      }
+
+      Transaction transaction = jedis.multi();
+
+      for (Map.Entry<String, Account> entry : cached.entrySet()) {
+        byte[] key = getKey(entry.getKey());
+        long   ttl = expiry.get(entry.getKey());
+
+        // Copies read from a replica carry an expiry, which a plain SET would drop
+        if (ttl > 0) transaction.set(key, AccountCodec.encode(entry.getValue()), "XX".getBytes(), "EX".getBytes(), (int)ttl);
+        else         transaction.set(key, AccountCodec.encode(entry.getValue()));
+      }
+
+      if (transaction.exec() == null) {
+        lastSeenRaceMeter.mark();
+      }
+    }
+  }
+
+  private void memcacheSetIfAbsent(String number, Account account, int expireSeconds) {
+    try (Jedis jedis = cacheClient.getWriteResource()) {
+      jedis.set(getKey(number), AccountCodec.encode(account), "NX".getBytes(), "EX".getBytes(), expireSeconds);
+    }
+  }
+
+  private Optional<Account> localGet(String number) {
+    Optional<byte[]> serialized = localCache.get().get(number);
+
+    try {
+      if (serialized.isPresent()) return Optional.of(AccountCodec.decode(serialized.get()));
+      else                        return Optional.absent();
+    } catch (IOException e) {
+      logger.warn("AccountsManager", "Deserialization error", e);
+      return Optional.absent();
+    }
+  }
+
+  private void localSet(String number, Account account, long version) {
+    localCache.get().put(number, AccountCodec.encode(account), version);
+  }
+
+  private void localInvalidate(String number) {
+    if (localCache.isPresent()) {
+      localCache.get().invalidate(number);
+    }
+  }
+
+  private Map<String, Account> memcacheGetAll(Collection<String> numbers) {
+    Map<String, Account> results = new HashMap<>();
+
+    if (numbers.isEmpty()) {
+      return results;
+    }
+
+    List<String> ordered = new ArrayList<>(numbers);
+    byte[][]     keys    = new byte[ordered.size()][];
+
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = getKey(ordered.get(i));
+    }
+
+    try (Jedis jedis = cacheClient.getReadResource()) {
+      List<byte[]> values = jedis.mget(keys);
+
+      for (int i = 0; i < values.size(); i++) {
+        if (values.get(i) == null) continue;
+
+        try {
+          results.put(ordered.get(i), AccountCodec.decode(values.get(i)));
+        } catch (IOException e) {
+          logger.warn("AccountsManager", "Deserialization error", e);
+        }
+      }
+    }
+
+    return results;
+  }
+
+  private void memcacheSetAll(Map<String, Account> fromPrimary, Map<String, Account> fromReplica) {
+    if (fromPrimary.isEmpty() && fromReplica.isEmpty()) {
+      return;
+    }
+
+    try (Jedis jedis = cacheClient.getWriteResource()) {
+      Pipeline pipeline = jedis.pipelined();
+
+      for (Account account : fromPrimary.values()) {
+        pipeline.set(getKey(account.getNumber()), AccountCodec.encode(account));
+      }
+
+      for (Account account : fromReplica.values()) {
+        pipeline.set(getKey(account.getNumber()), AccountCodec.encode(account), "NX".getBytes(), "EX".getBytes(), REPLICA_CACHE_SECONDS);
+      }
+
+      pipeline.sync();
     }
   }
 
   private Optional<Account> memcacheGet(String number) {
     try (Jedis jedis = cacheClient.getReadResource()) {
-      String json = jedis.get(getKey(number));
+      byte[] serialized = jedis.get(getKey(number));
 
-      if (json != null) return Optional.of(mapper.readValue(json, Account.class));
-      else              return Optional.absent();
+      if (serialized != null) return Optional.of(AccountCodec.decode(serialized));
+      else                    return Optional.absent();
     } catch (IOException e) {
       logger.warn("AccountsManager", "Deserialization error", e);
       return Optional.absent();
@@ -0,0 +1,155 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.redis.ReplicatedJedisPool;
+import org.whispersystems.textsecuregcm.util.Constants;
+import org.whispersystems.textsecuregcm.util.Pair;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import io.dropwizard.lifecycle.Managed;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+/**
+ * Daily active device counts, kept as one Redis HyperLogLog per day and kind.
+ * Master devices are added the first time they're seen each day, so counting
+ * the devices active over any range of days is a single PFCOUNT across that
+ * range's keys, rather than a scan of every account.
+ *
+ * Nothing can be taken back out of a HyperLogLog, so Android devices without
+ * a signed prekey aren't counted directly. Devices with one are recorded when
+ * they're seen and whenever they upload a key, and the unsigned count is the
+ * difference between the two.
+ */
+public class ActivityStats implements Managed, Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ActivityStats.class);
+
+  private static final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+
+  public static final String ANDROID       = "android";
+  public static final String IOS           = "ios";
+  public static final String SIGNED_KEYS   = "signed_keys";
+  public static final String UNSIGNED_KEYS = "unsigned_keys";
+
+  private static final int INTERVAL_SECONDS = 10;
+  private static final int RETENTION_DAYS   = 40;
+
+  private final ReplicatedJedisPool       jedisPool;
+  private final Set<Pair<String, String>> pending = ConcurrentHashMap.newKeySet();
+
+  private ScheduledExecutorService executor;
+
+  public ActivityStats(ReplicatedJedisPool jedisPool) {
+    this.jedisPool = jedisPool;
+  }
+
+  public void onSeen(String number, Device device, long lastSeen) {
+    if (!device.isMaster()) return;
+
+    long day = TimeUnit.MILLISECONDS.toDays(lastSeen);
+
+    if (device.getGcmId() != null)                                   pending.add(new Pair<>(getKey(ANDROID, day), number));
+    if (device.getApnId() != null)                                   pending.add(new Pair<>(getKey(IOS, day), number));
+    if (device.getGcmId() != null && device.getSignedPreKey() != null) pending.add(new Pair<>(getKey(SIGNED_KEYS, day), number));
+  }
+
+  public void onSignedKey(String number, Device device) {
+    if (!device.isMaster() || device.getGcmId() == null) return;
+
+    pending.add(new Pair<>(getKey(SIGNED_KEYS, TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis())), number));
+  }
+
+  /**
+   * @return The approximate number of master devices of this kind seen on any day from sinceDay through today.
+   */
+  public long getCount(String kind, long sinceDay) {
+    // Each estimate is off by up to a few percent, so the difference can come out slightly negative
+    if (UNSIGNED_KEYS.equals(kind)) {
+      return Math.max(0, getCount(ANDROID, sinceDay) - getCount(SIGNED_KEYS, sinceDay));
+    }
+
+    long         today = TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis());
+    List<String> keys  = new LinkedList<>();
+
+    for (long day = sinceDay; day <= today; day++) {
+      keys.add(getKey(kind, day));
+    }
+
+    try (Jedis jedis = jedisPool.getReadResource()) {
+      return jedis.pfcount(keys.toArray(new String[0]));
+    }
+  }
+
+  @Override
+  public void start() throws Exception {
+    registerGauges(ANDROID);
+    registerGauges(IOS);
+    registerGauges(UNSIGNED_KEYS);
+
+    this.executor = Executors.newSingleThreadScheduledExecutor();
+    this.executor.scheduleWithFixedDelay(this, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void stop() throws Exception {
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+
+    run();
+  }
+
+  @Override
+  public void run() {
+    Map<String, List<String>>      batches  = new HashMap<>();
+    Iterator<Pair<String, String>> iterator = pending.iterator();
+
+    while (iterator.hasNext()) {
+      Pair<String, String> entry = iterator.next();
+      iterator.remove();
+
+      batches.computeIfAbsent(entry.first(), key -> new LinkedList<>()).add(entry.second());
+    }
+
+    if (batches.isEmpty()) return;
+
+    try (Jedis jedis = jedisPool.getWriteResource()) {
+      Pipeline pipeline = jedis.pipelined();
+
+      for (Map.Entry<String, List<String>> batch : batches.entrySet()) {
+        pipeline.pfadd(batch.getKey(), batch.getValue().toArray(new String[0]));
+        pipeline.expire(batch.getKey(), (int)TimeUnit.DAYS.toSeconds(RETENTION_DAYS));
+      }
+
+      pipeline.sync();
+    } catch (Throwable t) {
+      logger.warn("Failed to record activity", t);
+    }
+  }
+
+  private void registerGauges(String kind) {
+    metricRegistry.register(name(ActivityStats.class, "daily_" + kind),
+                            (Gauge<Long>)() -> getCount(kind, TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis()) - 1));
+    metricRegistry.register(name(ActivityStats.class, "monthly_" + kind),
+                            (Gauge<Long>)() -> getCount(kind, TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis()) - 31));
+  }
+
+  private String getKey(String kind, long day) {
+    return "activity::" + kind + "::" + day;
+  }
+}
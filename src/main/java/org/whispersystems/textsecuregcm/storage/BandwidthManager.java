@@ -166,7 +166,9 @@ public class BandwidthManager {
         account.setPhoneBuyDate(new Date());
         account.setBalance(account.getBalance().min(phonePrice));
         account.setPhonePrice(phonePrice);
-        accountsManager.update(account);
+        if (!accountsManager.update(account)) {
+            return new PhoneNumbersResponse("Account changed concurrently, please try again.");
+        }
         accountNumbers.insertStep(account.getNumber(), phoneNumber.getNumber());
 
         return phoneNumbersResponse;
@@ -0,0 +1,77 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import org.whispersystems.textsecuregcm.redis.ReplicatedJedisPool;
+
+import redis.clients.jedis.Jedis;
+
+/**
+ * A node-local record of device queues that were recently found to be empty in
+ * both the message store and the message cache.
+ *
+ * Before a node reads a queue it may cache as empty, it leaves a short-lived
+ * watch key in redis. A write to the queue clears the watch key and, only if
+ * one was there, broadcasts an invalidation to the other nodes. Queues that no
+ * node is watching are written without any pubsub traffic.
+ */
+public class EmptyQueueCache extends InvalidatingCache<Boolean> {
+
+  private static final String INVALIDATION_CHANNEL = "EMPTY_QUEUE_INVALIDATION";
+  private static final int    WATCH_MARGIN_SECONDS = 60;
+
+  private final ReplicatedJedisPool jedisPool;
+  private final int                 watchSeconds;
+
+  public EmptyQueueCache(ReplicatedJedisPool jedisPool, long maximumSize, int expirationSeconds) {
+    super(INVALIDATION_CHANNEL, maximumSize, expirationSeconds);
+    this.jedisPool    = jedisPool;
+    this.watchSeconds = expirationSeconds + WATCH_MARGIN_SECONDS;
+  }
+
+  public boolean isEmpty(String number, long deviceId) {
+    return get(getKey(number, deviceId)).isPresent();
+  }
+
+  /**
+   * Registers interest in writes to a queue that is about to be read.
+   *
+   * @return A token to pass to {@link #setEmpty}.
+   */
+  public long watch(String number, long deviceId) {
+    String key = getKey(number, deviceId);
+
+    try (Jedis jedis = jedisPool.getWriteResource()) {
+      jedis.setex(getWatchKey(key), watchSeconds, "1");
+    }
+
+    return getVersion(key);
+  }
+
+  public void setEmpty(String number, long deviceId, long readVersion) {
+    put(getKey(number, deviceId), Boolean.TRUE, readVersion);
+  }
+
+  /**
+   * Invalidates a queue after a write to it has completed.
+   */
+  public void invalidate(String number, long deviceId) {
+    String key = getKey(number, deviceId);
+
+    invalidateLocal(key);
+
+    try (Jedis jedis = jedisPool.getWriteResource()) {
+      if (jedis.del(getWatchKey(key)) == 0) {
+        return;
+      }
+    }
+
+    publish(key);
+  }
+
+  private String getKey(String number, long deviceId) {
+    return number + ":" + deviceId;
+  }
+
+  private String getWatchKey(String key) {
+    return "empty_queue_watch::" + key;
+  }
+}
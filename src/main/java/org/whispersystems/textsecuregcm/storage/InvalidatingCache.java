@@ -0,0 +1,160 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.dispatch.DispatchChannel;
+import org.whispersystems.textsecuregcm.util.Constants;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import io.dropwizard.lifecycle.Managed;
+import static org.whispersystems.textsecuregcm.storage.PubSubProtos.PubSubMessage;
+
+/**
+ * A bounded, node-local cache whose entries can be invalidated from any node
+ * over a pubsub channel.
+ *
+ * Each key hashes to a version stripe that is bumped on invalidation. Readers
+ * take the version before loading a value and hand it back to {@link #put},
+ * which drops the entry if an invalidation for that stripe raced the load.
+ */
+public class InvalidatingCache<V> implements Managed, DispatchChannel {
+
+  private static final Logger logger = LoggerFactory.getLogger(InvalidatingCache.class);
+
+  private static final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+
+  private static final int VERSION_STRIPES = 4096;
+
+  private final Meter hitMeter     = metricRegistry.meter(name(getClass(), "hit"         ));
+  private final Meter missMeter    = metricRegistry.meter(name(getClass(), "miss"        ));
+  private final Meter publishMeter = metricRegistry.meter(name(getClass(), "publish"     ));
+  private final Meter remoteMeter  = metricRegistry.meter(name(getClass(), "invalidation"));
+
+  private final PubSubAddress    address;
+  private final Cache<String, V> entries;
+  private final AtomicLongArray  versions = new AtomicLongArray(VERSION_STRIPES);
+
+  private PubSubManager pubSubManager;
+
+  public InvalidatingCache(String channel, long maximumSize, int expirationSeconds) {
+    this.address = () -> channel;
+    this.entries = CacheBuilder.newBuilder()
+                               .maximumSize(maximumSize)
+                               .expireAfterWrite(expirationSeconds, TimeUnit.SECONDS)
+                               .build();
+  }
+
+  public void setPubSubManager(PubSubManager pubSubManager) {
+    this.pubSubManager = pubSubManager;
+  }
+
+  public Optional<V> get(String key) {
+    V value = entries.getIfPresent(key);
+
+    if (value != null) hitMeter.mark();
+    else               missMeter.mark();
+
+    return Optional.fromNullable(value);
+  }
+
+  /**
+   * @return A token to pass to {@link #put}, taken before the value is loaded.
+   */
+  public long getVersion(String key) {
+    return versions.get(getStripe(key));
+  }
+
+  public void put(String key, V value, long readVersion) {
+    entries.put(key, value);
+
+    // A write may have raced the load that produced this value
+    if (versions.get(getStripe(key)) != readVersion) {
+      entries.invalidate(key);
+    }
+  }
+
+  /**
+   * Invalidates a key here and on every other node, after a write to it has completed.
+   */
+  public void invalidate(String key) {
+    invalidateLocal(key);
+    publish(key);
+  }
+
+  /**
+   * Invalidates a key on this node only.
+   */
+  public void invalidateLocal(String key) {
+    versions.incrementAndGet(getStripe(key));
+    entries.invalidate(key);
+  }
+
+  protected void publish(String key) {
+    if (pubSubManager != null) {
+      publishMeter.mark();
+      pubSubManager.publish(address, PubSubMessage.newBuilder()
+                                                  .setType(PubSubMessage.Type.INVALIDATE)
+                                                  .setContent(ByteString.copyFromUtf8(key))
+                                                  .build());
+    }
+  }
+
+  @Override
+  public void start() throws Exception {
+    pubSubManager.subscribe(address, this);
+  }
+
+  @Override
+  public void stop() throws Exception {
+    pubSubManager.unsubscribe(address, this);
+  }
+
+  @Override
+  public void onDispatchMessage(String channel, byte[] message) {
+    try {
+      PubSubMessage pubSubMessage = PubSubMessage.parseFrom(message);
+
+      if (pubSubMessage.getType() == PubSubMessage.Type.INVALIDATE && pubSubMessage.hasContent()) {
+        remoteMeter.mark();
+        invalidateLocal(pubSubMessage.getContent().toStringUtf8());
+      }
+    } catch (InvalidProtocolBufferException e) {
+      logger.warn("Bad invalidation message", e);
+    }
+  }
+
+  @Override
+  public void onDispatchSubscribed(String channel) {
+    // Invalidations may have been missed while we weren't subscribed
+    invalidateAll();
+  }
+
+  @Override
+  public void onDispatchUnsubscribed(String channel) {
+    logger.warn("Invalidation channel unsubscribed: " + channel);
+    invalidateAll();
+  }
+
+  private void invalidateAll() {
+    for (int i = 0; i < VERSION_STRIPES; i++) {
+      versions.incrementAndGet(i);
+    }
+
+    entries.invalidateAll();
+  }
+
+  private int getStripe(String key) {
+    return (key.hashCode() & Integer.MAX_VALUE) % VERSION_STRIPES;
+  }
+}
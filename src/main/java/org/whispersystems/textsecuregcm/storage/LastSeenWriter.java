@@ -0,0 +1,126 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.util.Constants;
+import org.whispersystems.textsecuregcm.util.Pair;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Records device lastSeen days off the request path. Sightings are coalesced
+ * per device and written in small batches at jittered intervals, so the first
+ * authentication of each device after midnight doesn't turn into a storm of
+ * full account rewrites.
+ */
+public class LastSeenWriter implements Managed, Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(LastSeenWriter.class);
+
+  private static final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+  private static final Timer          flushTimer     = metricRegistry.timer(name(LastSeenWriter.class, "flush"  ));
+  private static final Meter          writtenMeter   = metricRegistry.meter(name(LastSeenWriter.class, "written"));
+  private static final Meter          droppedMeter   = metricRegistry.meter(name(LastSeenWriter.class, "dropped"));
+
+  private static final int INTERVAL_MILLIS = 1000;
+  private static final int BATCH_SIZE      = 500;
+  private static final int MAX_PENDING     = 1000000;
+
+  private final AccountsManager               accountsManager;
+  private final Map<Pair<String, Long>, Long> pending = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService executor;
+
+  public LastSeenWriter(AccountsManager accountsManager) {
+    this.accountsManager = accountsManager;
+  }
+
+  public void onSeen(String number, long deviceId, long lastSeen) {
+    // A dropped sighting is recorded again on the device's next authentication
+    if (pending.size() >= MAX_PENDING) {
+      droppedMeter.mark();
+      return;
+    }
+
+    pending.merge(new Pair<>(number, deviceId), lastSeen, Math::max);
+  }
+
+  @Override
+  public void start() throws Exception {
+    metricRegistry.register(name(LastSeenWriter.class, "pending"), (Gauge<Integer>)pending::size);
+
+    this.executor = Executors.newSingleThreadScheduledExecutor();
+    this.executor.schedule(this, getDelay(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() throws Exception {
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+
+    while (!pending.isEmpty()) {
+      flush();
+    }
+  }
+
+  @Override
+  public void run() {
+    try {
+      flush();
+    } catch (Throwable t) {
+      logger.warn("Failed to write lastSeen", t);
+    } finally {
+      if (!executor.isShutdown()) {
+        executor.schedule(this, getDelay(), TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private void flush() {
+    List<String> numbers   = new LinkedList<>();
+    List<Long>   deviceIds = new LinkedList<>();
+    List<Long>   lastSeens = new LinkedList<>();
+
+    Iterator<Map.Entry<Pair<String, Long>, Long>> iterator = pending.entrySet().iterator();
+
+    while (iterator.hasNext() && numbers.size() < BATCH_SIZE) {
+      Map.Entry<Pair<String, Long>, Long> entry = iterator.next();
+      iterator.remove();
+
+      numbers.add(entry.getKey().first());
+      deviceIds.add(entry.getKey().second());
+      lastSeens.add(entry.getValue());
+    }
+
+    if (numbers.isEmpty()) return;
+
+    Timer.Context timer = flushTimer.time();
+
+    try {
+      accountsManager.setLastSeen(numbers, deviceIds, lastSeens);
+      writtenMeter.mark(numbers.size());
+    } finally {
+      timer.stop();
+    }
+  }
+
+  private long getDelay() {
+    return INTERVAL_MILLIS / 2 + ThreadLocalRandom.current().nextInt(INTERVAL_MILLIS);
+  }
+}
@@ -0,0 +1,15 @@
+package org.whispersystems.textsecuregcm.storage;
+
+/**
+ * A node-local copy of recently read accounts, kept in front of the shared
+ * account cache and keyed by number. Entries are held in serialized form,
+ * since callers mutate the accounts they are handed.
+ */
+public class LocalAccountCache extends InvalidatingCache<byte[]> {
+
+  private static final String INVALIDATION_CHANNEL = "ACCOUNT_INVALIDATION";
+
+  public LocalAccountCache(long maximumSize, int expirationSeconds) {
+    super(INVALIDATION_CHANNEL, maximumSize, expirationSeconds);
+  }
+}
@@ -0,0 +1,62 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import org.whispersystems.textsecuregcm.entities.OutgoingMessageEntity;
+
+import java.util.List;
+
+/**
+ * The position reached while draining a device's queue, in both the message
+ * store and the message cache, so that the next page resumes where the last
+ * one ended rather than re-reading the queue from its head.
+ */
+public class MessageCursor {
+
+  public static final MessageCursor START = new MessageCursor(false, 0, 0, 0);
+
+  private final boolean storeDrained;
+  private final long    storeTimestamp;
+  private final long    storeId;
+  private final long    cacheId;
+
+  private MessageCursor(boolean storeDrained, long storeTimestamp, long storeId, long cacheId) {
+    this.storeDrained   = storeDrained;
+    this.storeTimestamp = storeTimestamp;
+    this.storeId        = storeId;
+    this.cacheId        = cacheId;
+  }
+
+  public MessageCursor advance(List<OutgoingMessageEntity> page) {
+    boolean storeDrained   = this.storeDrained || page.size() < Messages.RESULT_SET_CHUNK_SIZE;
+    long    storeTimestamp = this.storeTimestamp;
+    long    storeId        = this.storeId;
+    long    cacheId        = this.cacheId;
+
+    for (OutgoingMessageEntity message : page) {
+      if (message.isCached()) {
+        storeDrained = true;
+        cacheId      = Math.max(cacheId, message.getId());
+      } else {
+        storeTimestamp = message.getTimestamp();
+        storeId        = message.getId();
+      }
+    }
+
+    return new MessageCursor(storeDrained, storeTimestamp, storeId, cacheId);
+  }
+
+  boolean isStoreDrained() {
+    return storeDrained;
+  }
+
+  long getStoreTimestamp() {
+    return storeTimestamp;
+  }
+
+  long getStoreId() {
+    return storeId;
+  }
+
+  long getCacheId() {
+    return cacheId;
+  }
+}
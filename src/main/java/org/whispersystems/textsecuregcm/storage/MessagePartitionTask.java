@@ -0,0 +1,78 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.util.Constants;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Keeps a week of daily message partitions created ahead of time, whether or
+ * not retention is enabled, and reports how many rows have fallen through to
+ * the default partition. Those are messages whose sender timestamps are past
+ * every daily partition, and are worth an alert if they pile up.
+ */
+public class MessagePartitionTask implements Managed, Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(MessagePartitionTask.class);
+
+  private static final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+
+  private static final int INTERVAL_MINUTES  = 60;
+  private static final int MAX_DEFAULT_COUNT = 100000;
+
+  private final AtomicLong defaultCount = new AtomicLong(0);
+
+  private final Messages messages;
+
+  private ScheduledExecutorService executor;
+
+  public MessagePartitionTask(Messages messages) {
+    this.messages = messages;
+  }
+
+  @Override
+  public void start() throws Exception {
+    metricRegistry.register(name(MessagePartitionTask.class, "default_partition_rows"), (Gauge<Long>)defaultCount::get);
+
+    this.executor = Executors.newSingleThreadScheduledExecutor();
+    this.executor.scheduleWithFixedDelay(this, 0, INTERVAL_MINUTES, TimeUnit.MINUTES);
+  }
+
+  @Override
+  public void stop() throws Exception {
+    executor.shutdownNow();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+
+    metricRegistry.remove(name(MessagePartitionTask.class, "default_partition_rows"));
+  }
+
+  @Override
+  public void run() {
+    try {
+      int created = messages.createPartitions(Messages.PARTITIONS_AHEAD_DAYS);
+
+      if (created > 0) {
+        logger.info("Created " + created + " message partitions");
+      }
+
+      long count = messages.getDefaultCount(MAX_DEFAULT_COUNT);
+      defaultCount.set(count);
+
+      if (count > 0) {
+        logger.warn(count + (count >= MAX_DEFAULT_COUNT ? "+" : "") + " messages in the default partition");
+      }
+    } catch (Throwable t) {
+      logger.error("Exception maintaining message partitions", t);
+    }
+  }
+}
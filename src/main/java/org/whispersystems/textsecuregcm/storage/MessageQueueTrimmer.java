@@ -0,0 +1,86 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.util.Constants;
+import org.whispersystems.textsecuregcm.util.Pair;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Bounds the length of each device's queue in the message store. Queues that
+ * were written to are remembered and trimmed in the background, which keeps
+ * the trimming out of the insert path.
+ */
+public class MessageQueueTrimmer implements Managed, Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(MessageQueueTrimmer.class);
+
+  private static final MetricRegistry metricRegistry   = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+  private static final Timer          trimTimer        = metricRegistry.timer(name(MessageQueueTrimmer.class, "trim"));
+  private static final Histogram      pendingHistogram = metricRegistry.histogram(name(MessageQueueTrimmer.class, "pending"));
+
+  private static final int INTERVAL_SECONDS = 10;
+
+  private final Messages                messages;
+  private final Set<Pair<String, Long>> pending = ConcurrentHashMap.newKeySet();
+
+  private ScheduledExecutorService executor;
+
+  public MessageQueueTrimmer(Messages messages) {
+    this.messages = messages;
+  }
+
+  public void onStored(String destination, long destinationDevice) {
+    pending.add(new Pair<>(destination, destinationDevice));
+  }
+
+  @Override
+  public void start() throws Exception {
+    this.executor = Executors.newSingleThreadScheduledExecutor();
+    this.executor.scheduleWithFixedDelay(this, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void stop() throws Exception {
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+
+    // Anything left over is bounded the next time its queue is written to
+    run();
+  }
+
+  @Override
+  public void run() {
+    pendingHistogram.update(pending.size());
+
+    Iterator<Pair<String, Long>> iterator = pending.iterator();
+
+    while (iterator.hasNext()) {
+      Pair<String, Long> queue = iterator.next();
+      iterator.remove();
+
+      Timer.Context timer = trimTimer.time();
+
+      try {
+        messages.trim(queue.first(), queue.second(), Messages.MAX_QUEUE_SIZE);
+      } catch (Throwable t) {
+        logger.warn("Failed to trim queue", t);
+      } finally {
+        timer.stop();
+      }
+    }
+  }
+}
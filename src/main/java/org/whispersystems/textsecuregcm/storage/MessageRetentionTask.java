@@ -0,0 +1,180 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.configuration.MessageRetentionConfiguration;
+import org.whispersystems.textsecuregcm.redis.ReplicatedJedisPool;
+import org.whispersystems.textsecuregcm.util.Constants;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import io.dropwizard.lifecycle.Managed;
+import redis.clients.jedis.Jedis;
+
+/**
+ * Removes expired messages in the background. Expired daily partitions are
+ * dropped outright; the remaining rows are deleted in small id ranges at a
+ * bounded rate, so that retention never floods the replicas. Progress is
+ * checkpointed, and only one server runs a pass at a time.
+ *
+ * Rows are only ever deleted once their timestamp has expired. The checkpoint
+ * stops at the first id range that still holds rows, so a straggler with a
+ * skewed timestamp is revisited on later passes until it expires too.
+ */
+public class MessageRetentionTask implements Managed, Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(MessageRetentionTask.class);
+
+  private static final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+  private static final Meter          removedMeter   = metricRegistry.meter(name(MessageRetentionTask.class, "removed"));
+
+  private static final String CHECKPOINT_KEY = "message_retention_checkpoint";
+  private static final String FRONT_KEY      = "message_retention_front";
+  private static final String LOCK_KEY       = "message_retention_lock";
+  private static final int    LOCK_SECONDS   = 60;
+
+  private final AtomicLong passRemoved = new AtomicLong(0);
+  private final String     owner       = UUID.randomUUID().toString();
+
+  private final Messages                      messages;
+  private final ReplicatedJedisPool           jedisPool;
+  private final MessageRetentionConfiguration configuration;
+
+  private ScheduledExecutorService executor;
+
+  public MessageRetentionTask(Messages messages, ReplicatedJedisPool jedisPool, MessageRetentionConfiguration configuration) {
+    this.messages      = messages;
+    this.jedisPool     = jedisPool;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public void start() throws Exception {
+    metricRegistry.register(name(MessageRetentionTask.class, "pass_removed"), (Gauge<Long>)passRemoved::get);
+
+    this.executor = Executors.newSingleThreadScheduledExecutor();
+    this.executor.scheduleWithFixedDelay(this, 0, configuration.getIntervalMinutes(), TimeUnit.MINUTES);
+  }
+
+  @Override
+  public void stop() throws Exception {
+    executor.shutdownNow();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+
+    metricRegistry.remove(name(MessageRetentionTask.class, "pass_removed"));
+  }
+
+  @Override
+  public void run() {
+    try {
+      if (acquireLock()) {
+        runPass();
+      }
+    } catch (InterruptedException e) {
+      logger.info("Retention interrupted");
+    } catch (Throwable t) {
+      logger.error("Exception during retention pass", t);
+    }
+  }
+
+  private void runPass() throws InterruptedException {
+    long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(configuration.getRetentionDays());
+
+    logger.info("Dropped " + messages.dropPartitions(cutoff) + " expired partitions");
+
+    long    batchSize = configuration.getBatchSize();
+    long    end       = messages.getMaxId() + 1;
+    long    minId     = Math.max(getPosition(CHECKPOINT_KEY), messages.getMinId());
+    long    front     = getPosition(FRONT_KEY);
+    long    removed   = 0;
+    boolean cleared   = true;
+
+    passRemoved.set(0);
+
+    while (!executor.isShutdown()) {
+      // Skip straight over ranges emptied by dropped partitions
+      minId = messages.getMinId(minId, end);
+
+      if (minId >= end) {
+        break;
+      }
+
+      long start = System.currentTimeMillis();
+      long maxId = minId + batchSize;
+      int  count = messages.removeOld(minId, maxId, cutoff);
+
+      // Ids are assigned in arrival order, so past the previous front a range
+      // where nothing has expired yet marks the front of the retention window.
+      // Behind it, such a range only holds stragglers and is passed over.
+      if (count == 0 && minId >= front && messages.hasMessages(minId, maxId)) {
+        front = minId;
+        break;
+      }
+
+      removed += count;
+      removedMeter.mark(count);
+      passRemoved.set(removed);
+
+      cleared = cleared && !messages.hasAnyMessages(minId, maxId);
+      minId   = maxId;
+
+      if (cleared) {
+        setPosition(CHECKPOINT_KEY, minId);
+      }
+
+      if (!refreshLock()) {
+        logger.warn("Lost retention lock");
+        break;
+      }
+
+      long budgetMillis = count * 1000L / configuration.getRowsPerSecond();
+      long elapsed      = System.currentTimeMillis() - start;
+
+      if (budgetMillis > elapsed) {
+        Thread.sleep(budgetMillis - elapsed);
+      }
+    }
+
+    // Everything this pass got through is behind the front, even if it was cut short
+    setPosition(FRONT_KEY, Math.max(front, Math.min(minId, end)));
+
+    logger.info("Retention pass removed " + removed + " messages");
+  }
+
+  private boolean acquireLock() {
+    try (Jedis jedis = jedisPool.getWriteResource()) {
+      return "OK".equals(jedis.set(LOCK_KEY, owner, "NX", "EX", LOCK_SECONDS));
+    }
+  }
+
+  private boolean refreshLock() {
+    try (Jedis jedis = jedisPool.getWriteResource()) {
+      if (!owner.equals(jedis.get(LOCK_KEY))) return false;
+
+      jedis.expire(LOCK_KEY, LOCK_SECONDS);
+      return true;
+    }
+  }
+
+  private long getPosition(String key) {
+    try (Jedis jedis = jedisPool.getReadResource()) {
+      String position = jedis.get(key);
+      return position == null ? 0 : Long.parseLong(position);
+    }
+  }
+
+  private void setPosition(String key, long position) {
+    try (Jedis jedis = jedisPool.getWriteResource()) {
+      jedis.set(key, String.valueOf(position));
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package org.whispersystems.textsecuregcm.storage;
 
+import org.postgresql.PGConnection;
 import org.skife.jdbi.v2.SQLStatement;
 import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.Binder;
 import org.skife.jdbi.v2.sqlobject.BinderFactory;
@@ -9,23 +11,36 @@ import org.skife.jdbi.v2.sqlobject.BindingAnnotation;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
+import org.skife.jdbi.v2.sqlobject.mixins.GetHandle;
+import org.skife.jdbi.v2.tweak.Argument;
 import org.skife.jdbi.v2.tweak.ResultSetMapper;
 import org.whispersystems.textsecuregcm.entities.MessageProtos.Envelope;
 import org.whispersystems.textsecuregcm.entities.OutgoingMessageEntity;
 import org.whispersystems.textsecuregcm.util.Pair;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-public abstract class Messages {
+public abstract class Messages implements GetHandle {
 
   static final int RESULT_SET_CHUNK_SIZE = 100;
+  static final int MAX_QUEUE_SIZE        = 1000;
+
+  // Daily partitions are kept this many days ahead. Messages timestamped further out
+  // wait in the default partition until their day's partition is created.
+  public static final int PARTITIONS_AHEAD_DAYS = 7;
 
   private static final String ID                 = "id";
   private static final String TYPE               = "type";
@@ -38,16 +53,46 @@ public abstract class Messages {
   private static final String MESSAGE            = "message";
   private static final String CONTENT            = "content";
 
+  public static final String COPY_COLUMNS = TYPE + ", " + RELAY + ", " + TIMESTAMP + ", " + SOURCE + ", " + SOURCE_DEVICE + ", " + DESTINATION + ", " + DESTINATION_DEVICE + ", " + MESSAGE + ", " + CONTENT;
+
+  private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xff, '\r', '\n', 0};
+
   @SqlUpdate("INSERT INTO messages (" + TYPE + ", " + RELAY + ", " + TIMESTAMP + ", " + SOURCE + ", " + SOURCE_DEVICE + ", " + DESTINATION + ", " + DESTINATION_DEVICE + ", " + MESSAGE + ", " + CONTENT + ") " +
              "VALUES (:type, :relay, :timestamp, :source, :source_device, :destination, :destination_device, :message, :content)")
   abstract void store(@MessageBinder Envelope message,
                      @Bind("destination") String destination,
                      @Bind("destination_device") long destinationDevice);
 
+  /**
+   * Stores messages with a single binary COPY, which is considerably cheaper
+   * than a batch of INSERTs for anything but a handful of rows.
+   */
+  public void copy(List<Envelope> messages, String destination, long destinationDevice) {
+    try {
+      PGConnection connection = getHandle().getConnection().unwrap(PGConnection.class);
+      byte[]       encoded    = encodeCopy(messages, destination, destinationDevice);
+
+      connection.getCopyAPI().copyIn("COPY messages (" + COPY_COLUMNS + ") FROM STDIN (FORMAT binary)",
+                                     new ByteArrayInputStream(encoded));
+    } catch (SQLException | IOException e) {
+      throw new UnableToExecuteStatementException(e, null);
+    }
+  }
+
+  // The upper bound stays inside the daily partitions, so the planner can prune the
+  // default partition and every day too far ahead to hold a message yet
+  List<OutgoingMessageEntity> load(String destination, long destinationDevice, long afterTimestamp, long afterId) {
+    long maxTimestamp = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(PARTITIONS_AHEAD_DAYS);
+    return load(destination, destinationDevice, afterTimestamp, afterId, maxTimestamp);
+  }
+
   @Mapper(MessageMapper.class)
-  @SqlQuery("SELECT * FROM messages WHERE " + DESTINATION + " = :destination AND " + DESTINATION_DEVICE + " = :destination_device  ORDER BY " + TIMESTAMP + " ASC LIMIT " + RESULT_SET_CHUNK_SIZE)
+  @SqlQuery("SELECT * FROM messages WHERE " + DESTINATION + " = :destination AND " + DESTINATION_DEVICE + " = :destination_device AND " + TIMESTAMP + " >= :timestamp AND " + TIMESTAMP + " < :max_timestamp AND (" + TIMESTAMP + ", " + ID + ") > (:timestamp, :id) ORDER BY " + TIMESTAMP + " ASC, " + ID + " ASC LIMIT " + RESULT_SET_CHUNK_SIZE)
   abstract List<OutgoingMessageEntity> load(@Bind("destination")        String destination,
-                                            @Bind("destination_device") long destinationDevice);
+                                            @Bind("destination_device") long destinationDevice,
+                                            @Bind("timestamp")          long afterTimestamp,
+                                            @Bind("id")                 long afterId,
+                                            @Bind("max_timestamp")      long maxTimestamp);
 
   @Mapper(MessageMapper.class)
   @SqlQuery("DELETE FROM messages WHERE " + ID + " IN (SELECT " + ID + " FROM messages WHERE " + DESTINATION + " = :destination AND " + DESTINATION_DEVICE + " = :destination_device AND " + SOURCE + " = :source AND " + TIMESTAMP + " = :timestamp ORDER BY " + ID + " LIMIT 1) RETURNING *")
@@ -56,9 +101,25 @@ public abstract class Messages {
                                         @Bind("source")             String source,
                                         @Bind("timestamp")          long timestamp);
 
+  @Mapper(MessageMapper.class)
+  // Like the single remove, each ack deletes only the oldest matching message, so
+  // acking (source, timestamp) n times removes at most n of its duplicates
+  @SqlQuery("DELETE FROM messages WHERE " + ID + " IN (" +
+            "SELECT queued." + ID + " FROM (" +
+            "SELECT " + ID + ", " + SOURCE + ", " + TIMESTAMP + ", row_number() OVER (PARTITION BY " + SOURCE + ", " + TIMESTAMP + " ORDER BY " + ID + ") AS position " +
+            "FROM messages WHERE " + DESTINATION + " = :destination AND " + DESTINATION_DEVICE + " = :destination_device AND (" + SOURCE + ", " + TIMESTAMP + ") IN (SELECT * FROM unnest(:sources, :timestamps))) AS queued " +
+            "JOIN (SELECT " + SOURCE + ", " + TIMESTAMP + ", COUNT(*) AS acks FROM unnest(:sources, :timestamps) AS acked(" + SOURCE + ", " + TIMESTAMP + ") GROUP BY " + SOURCE + ", " + TIMESTAMP + ") AS acked " +
+            "USING (" + SOURCE + ", " + TIMESTAMP + ") WHERE queued.position <= acked.acks) RETURNING *")
+  abstract List<OutgoingMessageEntity> remove(@Bind("destination")        String destination,
+                                              @Bind("destination_device") long destinationDevice,
+                                              @SendersBinder              List<Pair<String, Long>> senders);
+
   @Mapper(DestinationMapper.class)
-  @SqlQuery("SELECT DISTINCT ON (destination, destination_device) destination, destination_device FROM messages WHERE timestamp > :timestamp ORDER BY destination, destination_device OFFSET :offset LIMIT :limit")
-  public abstract List<Pair<String, Integer>> getPendingDestinations(@Bind("timestamp") long sinceTimestamp, @Bind("offset") int offset, @Bind("limit") int limit);
+  @SqlQuery("SELECT DISTINCT ON (destination, destination_device) destination, destination_device FROM messages WHERE timestamp > :timestamp AND (destination, destination_device) > (:destination, :destination_device) ORDER BY destination, destination_device LIMIT :limit")
+  public abstract List<Pair<String, Integer>> getPendingDestinations(@Bind("timestamp")          long sinceTimestamp,
+                                                                     @Bind("destination")        String afterDestination,
+                                                                     @Bind("destination_device") int afterDestinationDevice,
+                                                                     @Bind("limit")              int limit);
 
   @Mapper(MessageMapper.class)
   @SqlUpdate("DELETE FROM messages WHERE " + ID + " = :id AND " + DESTINATION + " = :destination")
@@ -70,12 +131,88 @@ public abstract class Messages {
   @SqlUpdate("DELETE FROM messages WHERE " + DESTINATION + " = :destination AND " + DESTINATION_DEVICE + " = :destination_device")
   abstract void clear(@Bind("destination") String destination, @Bind("destination_device") long destinationDevice);
 
+  @SqlUpdate("DELETE FROM messages WHERE " + ID + " IN (SELECT " + ID + " FROM messages WHERE " + DESTINATION + " = :destination AND " + DESTINATION_DEVICE + " = :destination_device ORDER BY " + TIMESTAMP + " DESC OFFSET :max_queue_size)")
+  abstract void trim(@Bind("destination")        String destination,
+                     @Bind("destination_device") long destinationDevice,
+                     @Bind("max_queue_size")     int maxQueueSize);
+
   @SqlUpdate("DELETE FROM messages WHERE " + TIMESTAMP + " < :timestamp")
   public abstract void removeOld(@Bind("timestamp") long timestamp);
 
+  @SqlUpdate("DELETE FROM messages WHERE " + ID + " >= :min_id AND " + ID + " < :max_id AND " + TIMESTAMP + " < :timestamp")
+  public abstract int removeOld(@Bind("min_id") long minId, @Bind("max_id") long maxId, @Bind("timestamp") long timestamp);
+
+  // Rows parked in the default partition don't count: their timestamps are far ahead of their ids, so they can't mark the retention front
+  @SqlQuery("SELECT EXISTS (SELECT 1 FROM messages WHERE " + ID + " >= :min_id AND " + ID + " < :max_id AND tableoid <> CAST('messages_default' AS regclass))")
+  public abstract boolean hasMessages(@Bind("min_id") long minId, @Bind("max_id") long maxId);
+
+  @SqlQuery("SELECT EXISTS (SELECT 1 FROM messages WHERE " + ID + " >= :min_id AND " + ID + " < :max_id)")
+  public abstract boolean hasAnyMessages(@Bind("min_id") long minId, @Bind("max_id") long maxId);
+
+  @SqlQuery("SELECT COUNT(*) FROM (SELECT 1 FROM messages_default LIMIT :limit) AS parked")
+  public abstract long getDefaultCount(@Bind("limit") int limit);
+
+  @SqlQuery("SELECT COALESCE(MIN(" + ID + "), 0) FROM messages")
+  public abstract long getMinId();
+
+  @SqlQuery("SELECT COALESCE(MIN(" + ID + "), :max_id) FROM messages WHERE " + ID + " >= :min_id AND " + ID + " < :max_id")
+  public abstract long getMinId(@Bind("min_id") long minId, @Bind("max_id") long maxId);
+
+  @SqlQuery("SELECT COALESCE(MAX(" + ID + "), 0) FROM messages")
+  public abstract long getMaxId();
+
+  @SqlQuery("SELECT create_messages_partitions(:days_ahead)")
+  public abstract int createPartitions(@Bind("days_ahead") int daysAhead);
+
+  @SqlQuery("SELECT drop_messages_partitions(:timestamp)")
+  public abstract int dropPartitions(@Bind("timestamp") long timestamp);
+
   @SqlUpdate("VACUUM messages")
   public abstract void vacuum();
 
+  private static byte[] encodeCopy(List<Envelope> messages, String destination, long destinationDevice)
+      throws IOException
+  {
+    ByteArrayOutputStream baos   = new ByteArrayOutputStream();
+    DataOutputStream      output = new DataOutputStream(baos);
+
+    output.write(COPY_SIGNATURE);
+    output.writeInt(0);
+    output.writeInt(0);
+
+    for (Envelope message : messages) {
+      output.writeShort(9);
+
+      output.writeInt(2);
+      output.writeShort(message.getType().getNumber());
+      writeCopyField(output, message.getRelay().getBytes(StandardCharsets.UTF_8));
+      output.writeInt(8);
+      output.writeLong(message.getTimestamp());
+      writeCopyField(output, message.getSource().getBytes(StandardCharsets.UTF_8));
+      output.writeInt(4);
+      output.writeInt(message.getSourceDevice());
+      writeCopyField(output, destination.getBytes(StandardCharsets.UTF_8));
+      output.writeInt(4);
+      output.writeInt((int)destinationDevice);
+      writeCopyField(output, message.hasLegacyMessage() ? message.getLegacyMessage().toByteArray() : null);
+      writeCopyField(output, message.hasContent() ? message.getContent().toByteArray() : null);
+    }
+
+    output.writeShort(-1);
+    output.flush();
+
+    return baos.toByteArray();
+  }
+
+  private static void writeCopyField(DataOutputStream output, byte[] value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+    } else {
+      output.writeInt(value.length);
+      output.write(value);
+    }
+  }
+
   public static class DestinationMapper implements ResultSetMapper<Pair<String, Integer>> {
 
     @Override
@@ -136,5 +273,33 @@ public abstract class Messages {
     }
   }
 
+  @BindingAnnotation(SendersBinder.SendersBinderFactory.class)
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ElementType.PARAMETER})
+  public @interface SendersBinder {
+    public static class SendersBinderFactory implements BinderFactory {
+      @Override
+      public Binder build(Annotation annotation) {
+        return new Binder<SendersBinder, List<Pair<String, Long>>>() {
+          @Override
+          public void bind(SQLStatement<?> sql,
+                           SendersBinder sendersBinder,
+                           List<Pair<String, Long>> senders)
+          {
+            String[] sources    = new String[senders.size()];
+            Long[]   timestamps = new Long[senders.size()];
+
+            for (int i = 0; i < senders.size(); i++) {
+              sources[i]    = senders.get(i).first();
+              timestamps[i] = senders.get(i).second();
+            }
+
+            sql.bind("sources", (Argument)(position, statement, context) -> statement.setArray(position, statement.getConnection().createArrayOf("text", sources)));
+            sql.bind("timestamps", (Argument)(position, statement, context) -> statement.setArray(position, statement.getConnection().createArrayOf("bigint", timestamps)));
+          }
+        };
+      }
+    }
+  }
 
 }
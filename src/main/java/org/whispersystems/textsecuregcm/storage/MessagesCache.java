@@ -1,5 +1,6 @@
 package org.whispersystems.textsecuregcm.storage;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
@@ -8,6 +9,7 @@ import com.google.common.base.Optional;
 import com.google.protobuf.InvalidProtocolBufferException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.configuration.MessageCacheShardConfiguration;
 import org.whispersystems.textsecuregcm.entities.MessageProtos.Envelope;
 import org.whispersystems.textsecuregcm.entities.OutgoingMessageEntity;
 import org.whispersystems.textsecuregcm.push.NotPushRegisteredException;
@@ -20,23 +22,48 @@ import org.whispersystems.textsecuregcm.util.Util;
 import org.whispersystems.textsecuregcm.websocket.WebsocketAddress;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.codahale.metrics.MetricRegistry.name;
 import io.dropwizard.lifecycle.Managed;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.Tuple;
+import redis.clients.jedis.params.sortedset.ZAddParams;
+import redis.clients.util.JedisClusterCRC16;
 import redis.clients.util.SafeEncoder;
 
 public class MessagesCache implements Managed {
 
+  /**
+   * Accounts hash onto a fixed space of slots, and each shard owns ranges of slots. Every
+   * key in a slot, including the slot's own queue index, carries the slot as its hash tag.
+   */
+  public static final int SLOT_COUNT = 256;
+
+  /**
+   * The queues a device's cached messages may be read from, oldest first. Ids are only
+   * unique within a queue, so a message is removed by id from the queue it was read from.
+   */
+  public static final int LEGACY_QUEUE   = 0;
+  public static final int DRAINING_QUEUE = 1;
+  public static final int OWNER_QUEUE    = 2;
+
   private static final Logger         logger         = LoggerFactory.getLogger(MessagesCache.class);
 
   private static final MetricRegistry metricRegistry    = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
@@ -47,41 +74,111 @@ public class MessagesCache implements Managed {
   private static final Timer          clearAccountTimer = metricRegistry.timer(name(MessagesCache.class, "clearAccount"));
   private static final Timer          clearDeviceTimer  = metricRegistry.timer(name(MessagesCache.class, "clearDevice" ));
 
-  private final ReplicatedJedisPool jedisPool;
-  private final Messages            database;
-  private final AccountsManager     accountsManager;
-  private final int                 delayMinutes;
+  private final List<ReplicatedJedisPool> jedisPools;
+  private final int[]                     slotOwners;
+  private final int[]                     slotDrains;
+  private final Messages                  database;
+  private final EmptyQueueCache           emptyQueueCache;
+  private final AccountsManager           accountsManager;
+  private final int                       delayMinutes;
+  private final int                       persisterWorkers;
+  private final int                       persistLeaseSeconds;
+  private final int                       maxQueueSize;
+  private final int                       maxQueueBytes;
+
+  // Whether any queue written before slot tagging remains; cleared once the persister has drained them
+  private final AtomicBoolean legacyQueues = new AtomicBoolean(true);
+
+  private List<Shard> shards;
+  private Shard[]     owners;
+  private Shard[]     draining;
+
+  private PubSubManager          pubSubManager;
+  private PushSender             pushSender;
+  private List<MessagePersister> messagePersisters;
+
+  private StateSampler stateSampler;
+
+  public MessagesCache(List<Pair<ReplicatedJedisPool, MessageCacheShardConfiguration>> shardConfigurations,
+                       Messages database, EmptyQueueCache emptyQueueCache, AccountsManager accountsManager,
+                       int delayMinutes, int persisterWorkers, int persistLeaseSeconds, int maxQueueSize, int maxQueueBytes)
+  {
+    if (shardConfigurations.isEmpty()) throw new IllegalArgumentException("There must be at least one message cache shard");
+
+    this.jedisPools          = new ArrayList<>(shardConfigurations.size());
+    this.slotOwners          = new int[SLOT_COUNT];
+    this.slotDrains          = new int[SLOT_COUNT];
+    this.database            = database;
+    this.emptyQueueCache     = emptyQueueCache;
+    this.accountsManager     = accountsManager;
+    this.delayMinutes        = delayMinutes;
+    this.persisterWorkers    = persisterWorkers;
+    this.persistLeaseSeconds = persistLeaseSeconds;
+    this.maxQueueSize        = maxQueueSize;
+    this.maxQueueBytes       = maxQueueBytes;
+
+    Arrays.fill(slotOwners, -1);
+    Arrays.fill(slotDrains, -1);
+
+    for (int i = 0; i < shardConfigurations.size(); i++) {
+      MessageCacheShardConfiguration configuration = shardConfigurations.get(i).second();
+
+      jedisPools.add(shardConfigurations.get(i).first());
+
+      if (configuration.getSlots().isEmpty()) {
+        if (shardConfigurations.size() != 1) throw new IllegalArgumentException("Message cache shard " + i + " does not list its slots");
+        Arrays.fill(slotOwners, i);
+      }
 
-  private InsertOperation  insertOperation;
-  private RemoveOperation  removeOperation;
-  private GetOperation     getOperation;
+      for (int slot : parseSlots(configuration.getSlots())) {
+        if (slotOwners[slot] != -1) throw new IllegalArgumentException("Slot " + slot + " is owned by more than one shard");
+        slotOwners[slot] = i;
+      }
 
-  private PubSubManager    pubSubManager;
-  private PushSender       pushSender;
-  private MessagePersister messagePersister;
+      for (int slot : parseSlots(configuration.getDrainingSlots())) {
+        if (slotDrains[slot] != -1) throw new IllegalArgumentException("Slot " + slot + " is draining on more than one shard");
+        slotDrains[slot] = i;
+      }
+    }
 
-  public MessagesCache(ReplicatedJedisPool jedisPool, Messages database, AccountsManager accountsManager, int delayMinutes) {
-    this.jedisPool       = jedisPool;
-    this.database        = database;
-    this.accountsManager = accountsManager;
-    this.delayMinutes    = delayMinutes;
+    for (int slot = 0; slot < SLOT_COUNT; slot++) {
+      if (slotOwners[slot] == -1)               throw new IllegalArgumentException("Slot " + slot + " is not owned by any shard");
+      if (slotOwners[slot] == slotDrains[slot]) throw new IllegalArgumentException("Slot " + slot + " is draining on its owner");
+    }
   }
 
-  public void insert(String destination, long destinationDevice, Envelope message) {
+  /**
+   * @return false if the device's queue is full, in which case the message was not cached
+   * and the queue has been scheduled for immediate persistence.
+   */
+  public boolean insert(String destination, long destinationDevice, Envelope message) {
     Timer.Context timer = insertTimer.time();
 
     try {
-      insertOperation.insert(destination, destinationDevice, System.currentTimeMillis(), message);
+      List<Pair<Shard, Key>> queues  = getQueues(destination, destinationDevice);
+      Pair<Shard, Key>       current = queues.remove(queues.size() - 1);
+      long                   minId   = 0;
+
+      // Ids must stay above those in the older queues still read alongside this one
+      for (Pair<Shard, Key> queue : queues) {
+        minId = Math.max(minId, queue.first().getOperation.getLastId(queue.second()));
+      }
+
+      return current.first().insertOperation.insert(current.second(), System.currentTimeMillis(), message, minId);
     } finally {
       timer.stop();
     }
   }
 
-  public void remove(String destination, long destinationDevice, long id) {
+  public void remove(String destination, long destinationDevice, int queue, long id) {
     Timer.Context timer = removeByIdTimer.time();
 
     try {
-      removeOperation.remove(destination, destinationDevice, id);
+      Optional<Pair<Shard, Key>> location = getQueue(destination, destinationDevice, queue);
+
+      if (location.isPresent()) {
+        location.get().first().removeOperation.remove(location.get().second(), id);
+      }
     } finally {
       timer.stop();
     }
@@ -91,11 +188,13 @@ public class MessagesCache implements Managed {
     Timer.Context timer = removeByNameTimer.time();
 
     try {
-      byte[] serialized = removeOperation.remove(destination, destinationDevice, sender, timestamp);
+      for (Pair<Shard, Key> queue : getQueues(destination, destinationDevice)) {
+        byte[] serialized = queue.first().removeOperation.remove(queue.second(), sender, timestamp);
 
-      if (serialized != null) {
-        Envelope envelope = Envelope.parseFrom(serialized);
-        return Optional.of(constructEntityFromEnvelope(0, envelope));
+        if (serialized != null) {
+          Envelope envelope = Envelope.parseFrom(serialized);
+          return Optional.of(constructEntityFromEnvelope(0, envelope));
+        }
       }
     } catch (InvalidProtocolBufferException e) {
       logger.warn("Failed to parse envelope", e);
@@ -106,21 +205,48 @@ public class MessagesCache implements Managed {
     return Optional.absent();
   }
 
-  public List<OutgoingMessageEntity> get(String destination, long destinationDevice, int limit) {
+  public List<OutgoingMessageEntity> remove(String destination, long destinationDevice, List<Pair<String, Long>> senders) {
+    Timer.Context timer = removeByNameTimer.time();
+
+    try {
+      List<OutgoingMessageEntity> results = new LinkedList<>();
+      Set<Pair<String, Long>>     missed  = new LinkedHashSet<>(senders);
+
+      for (Pair<Shard, Key> queue : getQueues(destination, destinationDevice)) {
+        if (missed.isEmpty()) break;
+
+        for (byte[] serialized : queue.first().removeOperation.remove(queue.second(), new LinkedList<>(missed))) {
+          try {
+            OutgoingMessageEntity entity = constructEntityFromEnvelope(0, Envelope.parseFrom(serialized));
+
+            missed.remove(new Pair<>(entity.getSource(), entity.getTimestamp()));
+            results.add(entity);
+          } catch (InvalidProtocolBufferException e) {
+            logger.warn("Failed to parse envelope", e);
+          }
+        }
+      }
+
+      return results;
+    } finally {
+      timer.stop();
+    }
+  }
+
+  public List<OutgoingMessageEntity> get(String destination, long destinationDevice, long afterId, int limit) {
     Timer.Context timer = getTimer.time();
 
     try {
       List<OutgoingMessageEntity> results = new LinkedList<>();
-      Key                         key     = new Key(destination, destinationDevice);
-      List<Pair<byte[], Double>>  items   = getOperation.getItems(key.getUserMessageQueue(), key.getUserMessageQueuePersistInProgress(), limit);
 
-      for (Pair<byte[], Double> item : items) {
-        try {
-          long     id      = item.second().longValue();
-          Envelope message = Envelope.parseFrom(item.first());
-          results.add(constructEntityFromEnvelope(id, message));
-        } catch (InvalidProtocolBufferException e) {
-          logger.warn("Failed to parse envelope", e);
+      // Older queues hold lower ids, so reading them first keeps results in id order
+      for (int queue = LEGACY_QUEUE; queue <= OWNER_QUEUE && results.size() < limit; queue++) {
+        Optional<Pair<Shard, Key>> location = getQueue(destination, destinationDevice, queue);
+
+        if (!location.isPresent()) continue;
+
+        for (Pair<byte[], Double> item : location.get().first().getOperation.getItems(location.get().second(), afterId, limit - results.size())) {
+          results.add(new OutgoingMessageEntity(item.second().longValue(), queue, item.first()));
         }
       }
 
@@ -134,9 +260,12 @@ public class MessagesCache implements Managed {
     Timer.Context timer = clearAccountTimer.time();
 
     try {
-      for (int i = 1; i < 255; i++) {
-        clear(destination, i);
-      }
+      int slot = Key.getSlot(destination);
+
+      if (legacyQueues.get())     shards.get(0).removeOperation.clearLegacy(destination);
+      if (draining[slot] != null) draining[slot].removeOperation.clear(destination);
+
+      owners[slot].removeOperation.clear(destination);
     } finally {
       timer.stop();
     }
@@ -146,7 +275,9 @@ public class MessagesCache implements Managed {
     Timer.Context timer = clearDeviceTimer.time();
 
     try {
-      removeOperation.clear(destination, deviceId);
+      for (Pair<Shard, Key> queue : getQueues(destination, deviceId)) {
+        queue.first().removeOperation.clear(queue.second());
+      }
     } finally {
       timer.stop();
     }
@@ -159,18 +290,108 @@ public class MessagesCache implements Managed {
 
   @Override
   public void start() throws Exception {
-    this.insertOperation  = new InsertOperation(jedisPool);
-    this.removeOperation  = new RemoveOperation(jedisPool);
-    this.getOperation     = new GetOperation(jedisPool);
-    this.messagePersister = new MessagePersister(jedisPool, database, pubSubManager, pushSender, accountsManager, delayMinutes, TimeUnit.MINUTES);
+    this.shards            = new ArrayList<>(jedisPools.size());
+    this.owners            = new Shard[SLOT_COUNT];
+    this.draining          = new Shard[SLOT_COUNT];
+    this.messagePersisters = new LinkedList<>();
+
+    for (ReplicatedJedisPool jedisPool : jedisPools) {
+      shards.add(new Shard(jedisPool, maxQueueSize, maxQueueBytes));
+    }
+
+    for (int slot = 0; slot < SLOT_COUNT; slot++) {
+      owners[slot] = shards.get(slotOwners[slot]);
+      owners[slot].queueIndexes.add(Key.getUserMessageQueueIndex(slot));
+
+      if (slotDrains[slot] != -1) {
+        draining[slot] = shards.get(slotDrains[slot]);
+        draining[slot].drainingQueueIndexes.add(Key.getUserMessageQueueIndex(slot));
+      }
+    }
+
+    shards.get(0).drainingQueueIndexes.add(Key.getLegacyUserMessageQueueIndex());
 
-    this.messagePersister.start();
+    // Servers started after the untagged queues have drained never look at them
+    legacyQueues.set(shards.get(0).getOperation.getQueueCount(Key.getLegacyUserMessageQueueIndex()) > 0);
+
+    for (int i = 0; i < persisterWorkers; i++) {
+      MessagePersister messagePersister = new MessagePersister(i, shards, legacyQueues, database, emptyQueueCache, pubSubManager, pushSender,
+                                                               accountsManager, delayMinutes, TimeUnit.MINUTES, persistLeaseSeconds);
+      messagePersister.start();
+      messagePersisters.add(messagePersister);
+    }
+
+    this.stateSampler = new StateSampler(shards, TimeUnit.MINUTES.toMillis(delayMinutes));
+    this.stateSampler.start();
   }
 
   @Override
   public void stop() throws Exception {
-    messagePersister.shutdown();
-    logger.info("Message persister shut down...");
+    stateSampler.stop();
+
+    for (MessagePersister messagePersister : messagePersisters) {
+      messagePersister.shutdownAsync();
+    }
+
+    for (MessagePersister messagePersister : messagePersisters) {
+      messagePersister.awaitShutdown();
+    }
+
+    logger.info("Message persisters shut down...");
+  }
+
+  /**
+   * @return the shards and keys that may hold a device's queue, oldest first: the queue
+   * written before slot tagging, the queue on a shard its slot is moving away from, and
+   * the queue on the slot's owner, which is the only one still written to.
+   */
+  private List<Pair<Shard, Key>> getQueues(String address, long deviceId) {
+    List<Pair<Shard, Key>> queues = new ArrayList<>(3);
+
+    for (int queue = LEGACY_QUEUE; queue <= OWNER_QUEUE; queue++) {
+      Optional<Pair<Shard, Key>> location = getQueue(address, deviceId, queue);
+
+      if (location.isPresent()) {
+        queues.add(location.get());
+      }
+    }
+
+    return queues;
+  }
+
+  private Optional<Pair<Shard, Key>> getQueue(String address, long deviceId, int queue) {
+    int slot = Key.getSlot(address);
+
+    switch (queue) {
+      case LEGACY_QUEUE:   return legacyQueues.get()     ? Optional.of(new Pair<>(shards.get(0), Key.legacy(address, deviceId))) : Optional.absent();
+      case DRAINING_QUEUE: return draining[slot] != null ? Optional.of(new Pair<>(draining[slot], new Key(address, deviceId)))   : Optional.absent();
+      case OWNER_QUEUE:    return Optional.of(new Pair<>(owners[slot], new Key(address, deviceId)));
+      default:             throw new IllegalArgumentException("Unknown queue: " + queue);
+    }
+  }
+
+  private static List<Integer> parseSlots(List<String> ranges) {
+    List<Integer> slots = new LinkedList<>();
+
+    for (String range : ranges) {
+      try {
+        String[] parts = range.split("-", 2);
+        int      first = Integer.parseInt(parts[0].trim());
+        int      last  = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : first;
+
+        if (first < 0 || last >= SLOT_COUNT || first > last) {
+          throw new IllegalArgumentException("Bad slot range: " + range);
+        }
+
+        for (int slot = first; slot <= last; slot++) {
+          slots.add(slot);
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Bad slot range: " + range, e);
+      }
+    }
+
+    return slots;
   }
 
   private OutgoingMessageEntity constructEntityFromEnvelope(long id, Envelope envelope) {
@@ -189,16 +410,33 @@ public class MessagesCache implements Managed {
     private final byte[] userMessageQueue;
     private final byte[] userMessageQueueMetadata;
     private final byte[] userMessageQueuePersistInProgress;
+    private final byte[] userMessageQueueIndex;
+    private final byte[] userAccountQueues;
 
     private final String address;
     private final long   deviceId;
 
     Key(String address, long deviceId) {
+      this(address, deviceId, getHashTag(getSlot(address)) + address,
+           getUserMessageQueueIndex(getSlot(address)), getUserAccountQueues(address));
+    }
+
+    private Key(String address, long deviceId, String queueName, byte[] userMessageQueueIndex, byte[] userAccountQueues) {
       this.address                           = address;
       this.deviceId                          = deviceId;
-      this.userMessageQueue                  = ("user_queue::" + address + "::" + deviceId).getBytes();
-      this.userMessageQueueMetadata          = ("user_queue_metadata::" + address + "::" + deviceId).getBytes();
-      this.userMessageQueuePersistInProgress = ("user_queue_persisting::" + address + "::" + deviceId).getBytes();
+      this.userMessageQueue                  = ("user_queue::" + queueName + "::" + deviceId).getBytes();
+      this.userMessageQueueMetadata          = ("user_queue_metadata::" + queueName + "::" + deviceId).getBytes();
+      this.userMessageQueuePersistInProgress = ("user_queue_persisting::" + queueName + "::" + deviceId).getBytes();
+      this.userMessageQueueIndex             = userMessageQueueIndex;
+      this.userAccountQueues                 = userAccountQueues;
+    }
+
+    /**
+     * A queue written before keys carried a slot tag. These live on the first shard,
+     * share one untagged index, and are not listed in an account queue registry.
+     */
+    static Key legacy(String address, long deviceId) {
+      return new Key(address, deviceId, address, getLegacyUserMessageQueueIndex(), null);
     }
 
     String getAddress() {
@@ -221,10 +459,34 @@ public class MessagesCache implements Managed {
       return userMessageQueuePersistInProgress;
     }
 
-    static byte[] getUserMessageQueueIndex() {
+    byte[] getUserMessageQueueIndex() {
+      return userMessageQueueIndex;
+    }
+
+    byte[] getUserAccountQueues() {
+      return userAccountQueues;
+    }
+
+    static byte[] getUserAccountQueues(String address) {
+      return ("user_account_queues::" + getHashTag(getSlot(address)) + address).getBytes();
+    }
+
+    static byte[] getUserMessageQueueIndex(int slot) {
+      return ("user_queue_index::" + getHashTag(slot)).getBytes();
+    }
+
+    static byte[] getLegacyUserMessageQueueIndex() {
       return "user_queue_index".getBytes();
     }
 
+    static int getSlot(String address) {
+      return JedisClusterCRC16.getCRC16(address) % SLOT_COUNT;
+    }
+
+    static String getHashTag(int slot) {
+      return "{" + slot + "}";
+    }
+
     static Key fromUserMessageQueue(byte[] userMessageQueue) throws IOException {
       try {
         String[] parts = new String(userMessageQueue).split("::");
@@ -233,92 +495,258 @@ public class MessagesCache implements Managed {
           throw new IOException("Malformed key: " + new String(userMessageQueue));
         }
 
-        return new Key(parts[1], Long.parseLong(parts[2]));
+        long deviceId = Long.parseLong(parts[2]);
+
+        if (parts[1].startsWith("{")) {
+          return new Key(parts[1].substring(parts[1].indexOf('}') + 1), deviceId);
+        }
+
+        return legacy(parts[1], deviceId);
       } catch (NumberFormatException e) {
         throw new IOException(e);
       }
     }
   }
 
+  private static class Shard {
+
+    private final ReplicatedJedisPool jedisPool;
+    private final InsertOperation     insertOperation;
+    private final RemoveOperation     removeOperation;
+    private final GetOperation        getOperation;
+
+    // Indexes of the slots this shard owns, persisted after the configured delay
+    private final List<byte[]> queueIndexes = new ArrayList<>();
+
+    // Indexes of slots moving away from this shard, persisted without delay
+    private final List<byte[]> drainingQueueIndexes = new ArrayList<>();
+
+    Shard(ReplicatedJedisPool jedisPool, int maxQueueSize, int maxQueueBytes) throws IOException {
+      this.jedisPool       = jedisPool;
+      this.insertOperation = new InsertOperation(jedisPool, maxQueueSize, maxQueueBytes);
+      this.removeOperation = new RemoveOperation(jedisPool);
+      this.getOperation    = new GetOperation(jedisPool);
+    }
+
+    List<byte[]> getAllQueueIndexes() {
+      List<byte[]> indexes = new ArrayList<>(queueIndexes);
+      indexes.addAll(drainingQueueIndexes);
+
+      return indexes;
+    }
+  }
+
   private static class InsertOperation {
     private final LuaScript insert;
+    private final byte[]    maxQueueSize;
+    private final byte[]    maxQueueBytes;
 
-    InsertOperation(ReplicatedJedisPool jedisPool) throws IOException {
-      this.insert = LuaScript.fromResource(jedisPool, "lua/insert_item.lua");
+    InsertOperation(ReplicatedJedisPool jedisPool, int maxQueueSize, int maxQueueBytes) throws IOException {
+      this.insert        = LuaScript.fromResource(jedisPool, "lua/insert_item.lua");
+      this.maxQueueSize  = String.valueOf(maxQueueSize).getBytes();
+      this.maxQueueBytes = String.valueOf(maxQueueBytes).getBytes();
     }
 
-    public void insert(String destination, long destinationDevice, long timestamp, Envelope message) {
-      Key    key    = new Key(destination, destinationDevice);
+    public boolean insert(Key key, long timestamp, Envelope message, long minId) {
       String sender = message.getSource() + "::" + message.getTimestamp();
 
-      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), Key.getUserMessageQueueIndex());
-      List<byte[]> args = Arrays.asList(message.toByteArray(), String.valueOf(timestamp).getBytes(), sender.getBytes());
+      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), key.getUserMessageQueueIndex(),
+                                        key.getUserAccountQueues(), key.getUserMessageQueuePersistInProgress());
+      List<byte[]> args = Arrays.asList(message.toByteArray(), String.valueOf(timestamp).getBytes(), sender.getBytes(),
+                                        String.valueOf(key.getDeviceId()).getBytes(), maxQueueSize, maxQueueBytes,
+                                        String.valueOf(minId).getBytes());
 
-      insert.execute(keys, args);
+      return (Long)insert.execute(keys, args) != -1;
     }
   }
 
   private static class RemoveOperation {
 
+    private static final int MAX_CLEAR_PASSES     = 3;
+    private static final int MAX_LEGACY_DEVICE_ID = 254;
+
+    private final ReplicatedJedisPool jedisPool;
+
     private final LuaScript removeById;
+    private final LuaScript removeByIdRange;
     private final LuaScript removeBySender;
+    private final LuaScript removeBySenders;
     private final LuaScript removeQueue;
+    private final LuaScript removeAccountQueues;
 
     RemoveOperation(ReplicatedJedisPool jedisPool) throws IOException {
-      this.removeById     = LuaScript.fromResource(jedisPool, "lua/remove_item_by_id.lua"    );
-      this.removeBySender = LuaScript.fromResource(jedisPool, "lua/remove_item_by_sender.lua");
-      this.removeQueue    = LuaScript.fromResource(jedisPool, "lua/remove_queue.lua"         );
+      this.jedisPool           = jedisPool;
+      this.removeById          = LuaScript.fromResource(jedisPool, "lua/remove_item_by_id.lua"       );
+      this.removeByIdRange     = LuaScript.fromResource(jedisPool, "lua/remove_items_by_id_range.lua");
+      this.removeBySender      = LuaScript.fromResource(jedisPool, "lua/remove_item_by_sender.lua"   );
+      this.removeBySenders     = LuaScript.fromResource(jedisPool, "lua/remove_items_by_sender.lua"  );
+      this.removeQueue         = LuaScript.fromResource(jedisPool, "lua/remove_queue.lua"            );
+      this.removeAccountQueues = LuaScript.fromResource(jedisPool, "lua/remove_account_queues.lua"   );
     }
 
-    public void remove(String destination, long destinationDevice, long id) {
-      Key key = new Key(destination, destinationDevice);
-
-      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), Key.getUserMessageQueueIndex());
+    public void remove(Key key, long id) {
+      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), key.getUserMessageQueueIndex());
       List<byte[]> args = Collections.singletonList(String.valueOf(id).getBytes());
 
       this.removeById.execute(keys, args);
     }
 
-    public byte[] remove(String destination, long destinationDevice, String sender, long timestamp) {
-      Key    key       = new Key(destination, destinationDevice);
+    public void removeRange(Key key, long minId, long maxId) {
+      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), key.getUserMessageQueueIndex());
+      List<byte[]> args = Arrays.asList(String.valueOf(minId).getBytes(), String.valueOf(maxId).getBytes());
+
+      this.removeByIdRange.execute(keys, args);
+    }
+
+    public byte[] remove(Key key, String sender, long timestamp) {
       String senderKey = sender + "::" + timestamp;
 
-      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), Key.getUserMessageQueueIndex());
+      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), key.getUserMessageQueueIndex());
       List<byte[]> args = Collections.singletonList(senderKey.getBytes());
 
       return (byte[])this.removeBySender.execute(keys, args);
     }
 
-    public void clear(String destination, long deviceId) {
-      Key key = new Key(destination, deviceId);
-
-      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), Key.getUserMessageQueueIndex());
+    public List<byte[]> remove(Key key, List<Pair<String, Long>> senders) {
+      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), key.getUserMessageQueueIndex());
       List<byte[]> args = new LinkedList<>();
 
+      for (Pair<String, Long> sender : senders) {
+        args.add((sender.first() + "::" + sender.second()).getBytes());
+      }
+
+      return (List<byte[]>)this.removeBySenders.execute(keys, args);
+    }
+
+    public void clear(Key key) {
+      List<byte[]> keys = new LinkedList<>(Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueueMetadata(), key.getUserMessageQueueIndex()));
+      List<byte[]> args = Collections.singletonList(String.valueOf(key.getDeviceId()).getBytes());
+
+      if (key.getUserAccountQueues() != null) {
+        keys.add(key.getUserAccountQueues());
+      }
+
       this.removeQueue.execute(keys, args);
     }
+
+    public void clear(String destination) {
+      byte[]             accountQueues = Key.getUserAccountQueues(destination);
+      byte[]             queueIndex    = Key.getUserMessageQueueIndex(Key.getSlot(destination));
+      Collection<byte[]> deviceIds;
+
+      try (Jedis jedis = jedisPool.getWriteResource()) {
+        deviceIds = jedis.smembers(accountQueues);
+      }
+
+      // Every queue key is declared to the script, so a device that queues a message
+      // after the listing is handed back and cleared on the next pass
+      for (int pass = 0; pass < MAX_CLEAR_PASSES && !deviceIds.isEmpty(); pass++) {
+        List<byte[]> keys = new LinkedList<>();
+        List<byte[]> args = new LinkedList<>();
+
+        keys.add(accountQueues);
+        keys.add(queueIndex);
+
+        for (byte[] deviceId : deviceIds) {
+          Key key = new Key(destination, Long.parseLong(new String(deviceId)));
+
+          keys.add(key.getUserMessageQueue());
+          keys.add(key.getUserMessageQueueMetadata());
+          args.add(deviceId);
+        }
+
+        deviceIds = (List<byte[]>)this.removeAccountQueues.execute(keys, args);
+      }
+    }
+
+    public void clearLegacy(String destination) {
+      // Queues written before the account queue registry can only be found by device id.
+      // This runs only until the persister has drained them all after an upgrade.
+      List<byte[]> queues = new ArrayList<>(MAX_LEGACY_DEVICE_ID);
+      List<byte[]> keys   = new ArrayList<>(MAX_LEGACY_DEVICE_ID * 2);
+
+      for (long deviceId = 1; deviceId <= MAX_LEGACY_DEVICE_ID; deviceId++) {
+        Key key = Key.legacy(destination, deviceId);
+
+        queues.add(key.getUserMessageQueue());
+        keys.add(key.getUserMessageQueue());
+        keys.add(key.getUserMessageQueueMetadata());
+      }
+
+      try (Jedis jedis = jedisPool.getWriteResource()) {
+        Pipeline pipeline = jedis.pipelined();
+        pipeline.del(keys.toArray(new byte[0][]));
+        pipeline.zrem(Key.getLegacyUserMessageQueueIndex(), queues.toArray(new byte[0][]));
+        pipeline.sync();
+      }
+    }
   }
 
   private static class GetOperation {
 
-    private final LuaScript getQueues;
-    private final LuaScript getItems;
+    private final ReplicatedJedisPool jedisPool;
+    private final LuaScript           getQueues;
+    private final LuaScript           getItems;
 
     GetOperation(ReplicatedJedisPool jedisPool) throws IOException {
+      this.jedisPool = jedisPool;
       this.getQueues = LuaScript.fromResource(jedisPool, "lua/get_queues_to_persist.lua");
       this.getItems  = LuaScript.fromResource(jedisPool, "lua/get_items.lua");
     }
 
-    List<byte[]> getQueues(byte[] queue, long maxTimeMillis, int limit) {
-      List<byte[]> keys = Collections.singletonList(queue);
-      List<byte[]> args = Arrays.asList(String.valueOf(maxTimeMillis).getBytes(), String.valueOf(limit).getBytes());
+    long getQueueCount(byte[] queueIndex) {
+      try (Jedis jedis = jedisPool.getWriteResource()) {
+        return jedis.zcard(queueIndex);
+      }
+    }
+
+    long getLastId(Key key) {
+      try (Jedis jedis = jedisPool.getWriteResource()) {
+        byte[] counter = jedis.hget(key.getUserMessageQueueMetadata(), "counter".getBytes());
+
+        if (counter == null) return 0;
+        else                 return Long.parseLong(SafeEncoder.encode(counter));
+      }
+    }
+
+    Optional<Long> getEarliestQueueScore(List<byte[]> queueIndexes) {
+      if (queueIndexes.isEmpty()) return Optional.absent();
+
+      try (Jedis jedis = jedisPool.getWriteResource()) {
+        Pipeline                   pipeline  = jedis.pipelined();
+        List<Response<Set<Tuple>>> responses = new ArrayList<>(queueIndexes.size());
+        Optional<Long>             earliest  = Optional.absent();
+
+        for (byte[] queueIndex : queueIndexes) {
+          responses.add(pipeline.zrangeWithScores(queueIndex, 0, 0));
+        }
+
+        pipeline.sync();
+
+        for (Response<Set<Tuple>> response : responses) {
+          for (Tuple tuple : response.get()) {
+            if (!earliest.isPresent() || tuple.getScore() < earliest.get()) {
+              earliest = Optional.of((long)tuple.getScore());
+            }
+          }
+        }
+
+        return earliest;
+      }
+    }
+
+    List<byte[]> getQueues(byte[] queueIndex, long maxTimeMillis, int limit, long leaseExpiryMillis) {
+      List<byte[]> keys = Collections.singletonList(queueIndex);
+      List<byte[]> args = Arrays.asList(String.valueOf(maxTimeMillis).getBytes(),
+                                        String.valueOf(limit).getBytes(),
+                                        String.valueOf(leaseExpiryMillis).getBytes());
 
       return (List<byte[]>)getQueues.execute(keys, args);
     }
 
-    List<Pair<byte[], Double>> getItems(byte[] queue, byte[] lock, int limit) {
-      List<byte[]> keys = Arrays.asList(queue, lock);
-      List<byte[]> args = Collections.singletonList(String.valueOf(limit).getBytes());
+    List<Pair<byte[], Double>> getItems(Key key, long afterId, int limit) {
+      List<byte[]> keys = Arrays.asList(key.getUserMessageQueue(), key.getUserMessageQueuePersistInProgress());
+      List<byte[]> args = Arrays.asList(String.valueOf(limit).getBytes(), String.valueOf(afterId).getBytes());
 
       Iterator<byte[]>           results = ((List<byte[]>) getItems.execute(keys, args)).iterator();
       List<Pair<byte[], Double>> items   = new LinkedList<>();
@@ -331,6 +759,182 @@ public class MessagesCache implements Managed {
     }
   }
 
+  /**
+   * Periodically samples the state of each shard, so that a persister falling
+   * behind or a shard running out of memory shows up before clients notice.
+   */
+  private static class StateSampler implements Runnable {
+
+    private static final Logger         logger               = LoggerFactory.getLogger(StateSampler.class);
+    private static final MetricRegistry metricRegistry       = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+    private static final Histogram      queueLengthHistogram = metricRegistry.histogram(name(MessagesCache.class, "sampledQueueLength"));
+    private static final Histogram      queueBytesHistogram  = metricRegistry.histogram(name(MessagesCache.class, "sampledQueueBytes" ));
+
+    private static final int INTERVAL_SECONDS = 60;
+    private static final int SAMPLE_SIZE      = 100;
+
+    private final List<Shard> shards;
+    private final long        delayMillis;
+    private final Random      random = new Random();
+
+    private ScheduledExecutorService executor;
+
+    private final AtomicLong       queueCount = new AtomicLong();
+    private final AtomicLong       persistLag = new AtomicLong();
+    private final List<AtomicLong> usedMemory = new ArrayList<>();
+    private final List<AtomicLong> peakMemory = new ArrayList<>();
+    private final List<AtomicLong> rssMemory  = new ArrayList<>();
+
+    StateSampler(List<Shard> shards, long delayMillis) {
+      this.shards      = shards;
+      this.delayMillis = delayMillis;
+    }
+
+    void start() {
+      metricRegistry.register(name(MessagesCache.class, "queueCount"        ), (Gauge<Long>)queueCount::get);
+      metricRegistry.register(name(MessagesCache.class, "persistLagMillis"  ), (Gauge<Long>)persistLag::get);
+
+      for (int i = 0; i < shards.size(); i++) {
+        usedMemory.add(new AtomicLong());
+        peakMemory.add(new AtomicLong());
+        rssMemory.add(new AtomicLong());
+
+        metricRegistry.register(name(MessagesCache.class, "shard" + i, "usedMemory"   ), (Gauge<Long>)usedMemory.get(i)::get);
+        metricRegistry.register(name(MessagesCache.class, "shard" + i, "usedMemoryPeak"), (Gauge<Long>)peakMemory.get(i)::get);
+        metricRegistry.register(name(MessagesCache.class, "shard" + i, "usedMemoryRss"), (Gauge<Long>)rssMemory.get(i)::get);
+      }
+
+      this.executor = Executors.newSingleThreadScheduledExecutor();
+      this.executor.scheduleWithFixedDelay(this, 0, INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    void stop() {
+      executor.shutdownNow();
+
+      metricRegistry.remove(name(MessagesCache.class, "queueCount"      ));
+      metricRegistry.remove(name(MessagesCache.class, "persistLagMillis"));
+
+      for (int i = 0; i < shards.size(); i++) {
+        metricRegistry.remove(name(MessagesCache.class, "shard" + i, "usedMemory"    ));
+        metricRegistry.remove(name(MessagesCache.class, "shard" + i, "usedMemoryPeak"));
+        metricRegistry.remove(name(MessagesCache.class, "shard" + i, "usedMemoryRss" ));
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        long count = 0;
+        long lag   = 0;
+
+        for (int i = 0; i < shards.size(); i++) {
+          try (Jedis jedis = shards.get(i).jedisPool.getReadResource()) {
+            List<byte[]>               indexes     = shards.get(i).getAllQueueIndexes();
+            List<Response<Long>>       counts      = new ArrayList<>(indexes.size());
+            List<Response<Set<Tuple>>> earliest    = new ArrayList<>(indexes.size());
+            long[]                     indexCounts = new long[indexes.size()];
+            long                       shardCount  = 0;
+            Pipeline                   pipeline    = jedis.pipelined();
+
+            for (byte[] index : indexes) {
+              counts.add(pipeline.zcard(index));
+              earliest.add(pipeline.zrangeWithScores(index, 0, 0));
+            }
+
+            pipeline.sync();
+
+            for (int j = 0; j < indexes.size(); j++) {
+              indexCounts[j] = counts.get(j).get();
+              shardCount    += indexCounts[j];
+
+              for (Tuple tuple : earliest.get(j).get()) {
+                lag = Math.max(lag, System.currentTimeMillis() - delayMillis - (long)tuple.getScore());
+              }
+            }
+
+            count += shardCount;
+
+            sampleQueues(jedis, indexes, indexCounts, shardCount);
+          }
+
+          // Memory is the primary's own figure, which a replica doesn't report
+          try (Jedis jedis = shards.get(i).jedisPool.getWriteResource()) {
+            sampleMemory(jedis, i);
+          }
+        }
+
+        queueCount.set(count);
+        persistLag.set(lag);
+      } catch (Throwable t) {
+        logger.warn("Failed to sample message cache state", t);
+      }
+    }
+
+    private void sampleQueues(Jedis jedis, List<byte[]> indexes, long[] indexCounts, long queueCount) {
+      if (queueCount == 0) return;
+
+      Pipeline                    pipeline = jedis.pipelined();
+      List<Response<Set<byte[]>>> queues   = new LinkedList<>();
+
+      for (int i = 0; i < Math.min(SAMPLE_SIZE, queueCount); i++) {
+        long offset = (long)(random.nextDouble() * queueCount);
+        int  index  = 0;
+
+        while (offset >= indexCounts[index]) {
+          offset -= indexCounts[index++];
+        }
+
+        queues.add(pipeline.zrange(indexes.get(index), offset, offset));
+      }
+
+      pipeline.sync();
+
+      List<Response<Long>>   lengths = new LinkedList<>();
+      List<Response<byte[]>> sizes   = new LinkedList<>();
+
+      pipeline = jedis.pipelined();
+
+      for (Response<Set<byte[]>> queue : queues) {
+        for (byte[] queueKey : queue.get()) {
+          try {
+            Key key = Key.fromUserMessageQueue(queueKey);
+
+            lengths.add(pipeline.zcard(queueKey));
+            sizes.add(pipeline.hget(key.getUserMessageQueueMetadata(), "bytes".getBytes()));
+          } catch (IOException e) {
+            logger.warn("Bad queue key", e);
+          }
+        }
+      }
+
+      pipeline.sync();
+
+      for (Response<Long> length : lengths) {
+        queueLengthHistogram.update(length.get());
+      }
+
+      for (Response<byte[]> size : sizes) {
+        if (size.get() != null) {
+          queueBytesHistogram.update(Long.parseLong(SafeEncoder.encode(size.get())));
+        }
+      }
+    }
+
+    private void sampleMemory(Jedis jedis, int shard) {
+      for (String line : jedis.info("memory").split("\r?\n")) {
+        String[] parts = line.split(":", 2);
+
+        if (parts.length != 2) continue;
+
+        switch (parts[0]) {
+          case "used_memory":      usedMemory.get(shard).set(Long.parseLong(parts[1].trim())); break;
+          case "used_memory_peak": peakMemory.get(shard).set(Long.parseLong(parts[1].trim())); break;
+          case "used_memory_rss":  rssMemory.get(shard).set(Long.parseLong(parts[1].trim()));  break;
+        }
+      }
+    }
+  }
+
   private static class MessagePersister extends Thread {
 
     private static final Logger         logger              = LoggerFactory.getLogger(MessagePersister.class);
@@ -340,37 +944,54 @@ public class MessagesCache implements Managed {
     private static final Timer          notifyTimer         = metricRegistry.timer(name(MessagesCache.class, "notifyUser"  ));
     private static final Histogram      queueSizeHistogram  = metricRegistry.histogram(name(MessagesCache.class, "persistQueueSize" ));
     private static final Histogram      queueCountHistogram = metricRegistry.histogram(name(MessagesCache.class, "persistQueueCount"));
+    private static final Histogram      idleHistogram       = metricRegistry.histogram(name(MessagesCache.class, "persistIdleMillis"));
+    private static final Histogram      pacingHistogram     = metricRegistry.histogram(name(MessagesCache.class, "persistPacingMillis"));
 
     private static final int CHUNK_SIZE = 100;
 
+    // Upper bound on an idle sleep, so queues promoted by an overflowing insert are still picked up promptly
+    private static final long MAX_IDLE_MILLIS     = TimeUnit.SECONDS.toMillis(30);
+    private static final long MIN_IDLE_MILLIS     = 100;
+
+    // Chunk writes slower than this are followed by a pause that grows with the excess
+    private static final long TARGET_STORE_MILLIS = 50;
+    private static final long MAX_PACING_MILLIS   = TimeUnit.SECONDS.toMillis(5);
+
     private final AtomicBoolean running = new AtomicBoolean(true);
 
-    private final ReplicatedJedisPool jedisPool;
-    private final Messages            database;
-    private final long                delayTime;
-    private final TimeUnit            delayTimeUnit;
+    private final List<Shard>     shards;
+    private final AtomicBoolean   legacyQueues;
+    private final Messages        database;
+    private final EmptyQueueCache emptyQueueCache;
+    private final long            delayTime;
+    private final TimeUnit        delayTimeUnit;
+    private final int             leaseSeconds;
 
     private final PubSubManager   pubSubManager;
     private final PushSender      pushSender;
     private final AccountsManager accountsManager;
 
-    private final GetOperation    getOperation;
-    private final RemoveOperation removeOperation;
-
     private boolean finished = false;
 
-    MessagePersister(ReplicatedJedisPool jedisPool,
-                     Messages            database,
-                     PubSubManager       pubSubManager,
-                     PushSender          pushSender,
-                     AccountsManager     accountsManager,
-                     long                delayTime,
-                     TimeUnit            delayTimeUnit)
-        throws IOException
+    private double storeMillisAverage = 0;
+
+    MessagePersister(int             workerId,
+                     List<Shard>     shards,
+                     AtomicBoolean   legacyQueues,
+                     Messages        database,
+                     EmptyQueueCache emptyQueueCache,
+                     PubSubManager   pubSubManager,
+                     PushSender      pushSender,
+                     AccountsManager accountsManager,
+                     long            delayTime,
+                     TimeUnit        delayTimeUnit,
+                     int             leaseSeconds)
     {
-      super(MessagePersister.class.getSimpleName());
-      this.jedisPool     = jedisPool;
-      this.database      = database;
+      super(MessagePersister.class.getSimpleName() + "-" + workerId);
+      this.shards          = shards;
+      this.legacyQueues    = legacyQueues;
+      this.database        = database;
+      this.emptyQueueCache = emptyQueueCache;
 
       this.pubSubManager   = pubSubManager;
       this.pushSender      = pushSender;
@@ -378,27 +999,35 @@ public class MessagesCache implements Managed {
 
       this.delayTime       = delayTime;
       this.delayTimeUnit   = delayTimeUnit;
-      this.getOperation    = new GetOperation(jedisPool);
-      this.removeOperation = new RemoveOperation(jedisPool);
+      this.leaseSeconds    = leaseSeconds;
     }
 
     @Override
     public void run() {
       while (running.get()) {
         try {
-          List<byte[]> queuesToPersist = getQueuesToPersist(getOperation);
-          queueCountHistogram.update(queuesToPersist.size());
+          int queuesPersistedCount = 0;
+
+          for (Shard shard : shards) {
+            int shardPersistedCount = persistQueues(shard, shard.queueIndexes, delayTimeUnit.toMillis(delayTime)) +
+                                      persistQueues(shard, shard.drainingQueueIndexes, 0);
 
-          for (byte[] queue : queuesToPersist) {
-            Key key = Key.fromUserMessageQueue(queue);
+            queueCountHistogram.update(shardPersistedCount);
+            queuesPersistedCount += shardPersistedCount;
+          }
 
-            persistQueue(jedisPool, key);
-            notifyClients(accountsManager, pubSubManager, pushSender, key);
+          if (legacyQueues.get() && shards.get(0).getOperation.getQueueCount(Key.getLegacyUserMessageQueueIndex()) == 0) {
+            logger.info("Queues from before slot tagging have all been persisted");
+            legacyQueues.set(false);
           }
 
-          if (queuesToPersist.isEmpty()) {
-            Thread.sleep(10000);
+          if (queuesPersistedCount == 0) {
+            long idleMillis = getIdleMillis();
+            idleHistogram.update(idleMillis);
+            Thread.sleep(idleMillis);
           }
+        } catch (InterruptedException e) {
+          logger.info("Persister interrupted");
         } catch (Throwable t) {
           logger.error("Exception while persisting: ", t);
         }
@@ -410,30 +1039,58 @@ public class MessagesCache implements Managed {
       }
     }
 
-    synchronized void shutdown() {
+    void shutdownAsync() {
       running.set(false);
+      interrupt();
+    }
+
+    synchronized void awaitShutdown() {
       while (!finished) Util.wait(this);
     }
 
-    private void persistQueue(ReplicatedJedisPool jedisPool, Key key) throws IOException {
+    private int persistQueues(Shard shard, List<byte[]> queueIndexes, long delayMillis) throws IOException, InterruptedException {
+      int queuesPersistedCount = 0;
+
+      for (byte[] queueIndex : queueIndexes) {
+        for (byte[] queue : getQueuesToPersist(shard, queueIndex, delayMillis)) {
+          Key key = Key.fromUserMessageQueue(queue);
+
+          if (persistQueue(shard, key, delayMillis) > 0) {
+            database.trim(key.getAddress(), key.getDeviceId(), Messages.MAX_QUEUE_SIZE);
+          }
+
+          emptyQueueCache.invalidate(key.getAddress(), key.getDeviceId());
+          notifyClients(accountsManager, pubSubManager, pushSender, key);
+          queuesPersistedCount++;
+        }
+      }
+
+      return queuesPersistedCount;
+    }
+
+    private int persistQueue(Shard shard, Key key, long delayMillis) throws IOException, InterruptedException {
       Timer.Context timer = persistQueueTimer.time();
 
       int messagesPersistedCount = 0;
 
-      try (Jedis jedis = jedisPool.getWriteResource()) {
+      try (Jedis jedis = shard.jedisPool.getWriteResource()) {
         while (true) {
-          jedis.setex(key.getUserMessageQueuePersistInProgress(), 30, "1".getBytes());
+          Pipeline              pipeline = jedis.pipelined();
+          Response<Set<Tuple>>  response;
 
-          Set<Tuple> messages = jedis.zrangeWithScores(key.getUserMessageQueue(), 0, CHUNK_SIZE);
+          pipeline.setex(key.getUserMessageQueuePersistInProgress(), 30, "1".getBytes());
+          pipeline.zadd(key.getUserMessageQueueIndex(), getLeaseExpiry(delayMillis), key.getUserMessageQueue(), ZAddParams.zAddParams().xx());
+          response = pipeline.zrangeWithScores(key.getUserMessageQueue(), 0, CHUNK_SIZE - 1);
+          pipeline.sync();
 
-          for (Tuple message : messages) {
-            persistMessage(key, (long)message.getScore(), message.getBinaryElement());
-            messagesPersistedCount++;
-          }
+          Set<Tuple> messages = response.get();
+
+          messagesPersistedCount += persistChunk(shard, key, messages);
+          pace();
 
           if (messages.size() < CHUNK_SIZE) {
             jedis.del(key.getUserMessageQueuePersistInProgress());
-            return;
+            return messagesPersistedCount;
           }
         }
       } finally {
@@ -442,27 +1099,84 @@ public class MessagesCache implements Managed {
       }
     }
 
-    private void persistMessage(Key key, long score, byte[] message) {
-      try {
-        Envelope envelope = Envelope.parseFrom(message);
-        database.store(envelope, key.getAddress(), key.getDeviceId());
-      } catch (InvalidProtocolBufferException e) {
-        logger.error("Error parsing envelope", e);
+    private int persistChunk(Shard shard, Key key, Set<Tuple> messages) {
+      if (messages.isEmpty()) return 0;
+
+      List<Envelope> envelopes = new ArrayList<>(messages.size());
+      long           minId     = Long.MAX_VALUE;
+      long           maxId     = Long.MIN_VALUE;
+
+      for (Tuple message : messages) {
+        long id = (long)message.getScore();
+
+        minId = Math.min(minId, id);
+        maxId = Math.max(maxId, id);
+
+        try {
+          envelopes.add(Envelope.parseFrom(message.getBinaryElement()));
+        } catch (InvalidProtocolBufferException e) {
+          logger.error("Error parsing envelope", e);
+        }
       }
 
-      removeOperation.remove(key.getAddress(), key.getDeviceId(), score);
+      if (!envelopes.isEmpty()) {
+        long start = System.currentTimeMillis();
+        database.copy(envelopes, key.getAddress(), key.getDeviceId());
+        storeMillisAverage = 0.8 * storeMillisAverage + 0.2 * (System.currentTimeMillis() - start);
+      }
+
+      shard.removeOperation.removeRange(key, minId, maxId);
+
+      return envelopes.size();
     }
 
-    private List<byte[]> getQueuesToPersist(GetOperation getOperation) {
+    private List<byte[]> getQueuesToPersist(Shard shard, byte[] queueIndex, long delayMillis) {
       Timer.Context timer = getQueuesTimer.time();
       try {
-        long maxTime = System.currentTimeMillis() - delayTimeUnit.toMillis(delayTime);
-        return getOperation.getQueues(Key.getUserMessageQueueIndex(), maxTime, 100);
+        long maxTime = System.currentTimeMillis() - delayMillis;
+        return shard.getOperation.getQueues(queueIndex, maxTime, 100, getLeaseExpiry(delayMillis));
       } finally {
         timer.stop();
       }
     }
 
+    private void pace() throws InterruptedException {
+      // Back off while the message store is slow, so that draining a large
+      // backlog doesn't starve the rest of the service of database capacity
+      long pacingMillis = Math.min(MAX_PACING_MILLIS, Math.round(storeMillisAverage) - TARGET_STORE_MILLIS);
+
+      if (pacingMillis > 0) {
+        pacingHistogram.update(pacingMillis);
+        Thread.sleep(pacingMillis);
+      }
+    }
+
+    private long getIdleMillis() {
+      long delayMillis = delayTimeUnit.toMillis(delayTime);
+      long idleMillis  = MAX_IDLE_MILLIS;
+
+      for (Shard shard : shards) {
+        Optional<Long> earliest         = shard.getOperation.getEarliestQueueScore(shard.queueIndexes);
+        Optional<Long> earliestDraining = shard.getOperation.getEarliestQueueScore(shard.drainingQueueIndexes);
+
+        if (earliest.isPresent()) {
+          idleMillis = Math.min(idleMillis, earliest.get() + delayMillis - System.currentTimeMillis());
+        }
+
+        if (earliestDraining.isPresent()) {
+          idleMillis = Math.min(idleMillis, earliestDraining.get() - System.currentTimeMillis());
+        }
+      }
+
+      return Math.max(MIN_IDLE_MILLIS, idleMillis);
+    }
+
+    private long getLeaseExpiry(long delayMillis) {
+      // A leased queue is rescored into the future so that other workers skip it; if this
+      // worker dies, the queue becomes eligible again once the lease expires.
+      return System.currentTimeMillis() - delayMillis + TimeUnit.SECONDS.toMillis(leaseSeconds);
+    }
+
     private void notifyClients(AccountsManager accountsManager, PubSubManager pubSubManager, PushSender pushSender, Key key)
         throws IOException
     {
@@ -10,10 +10,14 @@ import org.whispersystems.textsecuregcm.entities.OutgoingMessageEntity;
 import org.whispersystems.textsecuregcm.entities.OutgoingMessageEntityList;
 import org.whispersystems.textsecuregcm.util.Constants;
 import org.whispersystems.textsecuregcm.util.Conversions;
+import org.whispersystems.textsecuregcm.util.Pair;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
@@ -24,30 +28,63 @@ public class MessagesManager {
   private static final Meter          cacheMissByIdMeter   = metricRegistry.meter(name(MessagesManager.class, "cacheMissById"  ));
   private static final Meter          cacheHitByNameMeter  = metricRegistry.meter(name(MessagesManager.class, "cacheHitByName" ));
   private static final Meter          cacheMissByNameMeter = metricRegistry.meter(name(MessagesManager.class, "cacheMissByName"));
+  private static final Meter          cacheOverflowMeter   = metricRegistry.meter(name(MessagesManager.class, "cacheOverflow"  ));
 
-  private final Messages      messages;
-  private final MessagesCache messagesCache;
-  private final Distribution  distribution;
+  private final Messages            messages;
+  private final MessagesCache       messagesCache;
+  private final EmptyQueueCache     emptyQueueCache;
+  private final MessageQueueTrimmer messageQueueTrimmer;
+  private final Distribution        distribution;
 
-  public MessagesManager(Messages messages, MessagesCache messagesCache, float cacheRate) {
-    this.messages      = messages;
-    this.messagesCache = messagesCache;
-    this.distribution  = new Distribution(cacheRate);
+  public MessagesManager(Messages messages, MessagesCache messagesCache, EmptyQueueCache emptyQueueCache,
+                         MessageQueueTrimmer messageQueueTrimmer, float cacheRate)
+  {
+    this.messages            = messages;
+    this.messagesCache       = messagesCache;
+    this.emptyQueueCache     = emptyQueueCache;
+    this.messageQueueTrimmer = messageQueueTrimmer;
+    this.distribution        = new Distribution(cacheRate);
   }
 
   public void insert(String destination, long destinationDevice, Envelope message) {
-    if (distribution.isQualified(destination, destinationDevice)) {
-      messagesCache.insert(destination, destinationDevice, message);
-    } else {
+    if (!distribution.isQualified(destination, destinationDevice)) {
+      messages.store(message, destination, destinationDevice);
+      messageQueueTrimmer.onStored(destination, destinationDevice);
+    } else if (!messagesCache.insert(destination, destinationDevice, message)) {
       messages.store(message, destination, destinationDevice);
+      messageQueueTrimmer.onStored(destination, destinationDevice);
+      cacheOverflowMeter.mark();
     }
+
+    emptyQueueCache.invalidate(destination, destinationDevice);
   }
 
   public OutgoingMessageEntityList getMessagesForDevice(String destination, long destinationDevice) {
-    List<OutgoingMessageEntity> messages = this.messages.load(destination, destinationDevice);
+    if (emptyQueueCache.isEmpty(destination, destinationDevice)) {
+      return new OutgoingMessageEntityList(new LinkedList<>(), false);
+    }
+
+    long                      version  = emptyQueueCache.watch(destination, destinationDevice);
+    OutgoingMessageEntityList messages = getMessagesForDevice(destination, destinationDevice, MessageCursor.START);
 
-    if (messages.size() <= Messages.RESULT_SET_CHUNK_SIZE) {
-      messages.addAll(this.messagesCache.get(destination, destinationDevice, Messages.RESULT_SET_CHUNK_SIZE - messages.size()));
+    if (messages.getMessages().isEmpty()) {
+      emptyQueueCache.setEmpty(destination, destinationDevice, version);
+    }
+
+    return messages;
+  }
+
+  public OutgoingMessageEntityList getMessagesForDevice(String destination, long destinationDevice, MessageCursor cursor) {
+    List<OutgoingMessageEntity> messages;
+
+    if (cursor.isStoreDrained()) {
+      messages = new LinkedList<>();
+    } else {
+      messages = this.messages.load(destination, destinationDevice, cursor.getStoreTimestamp(), cursor.getStoreId());
+    }
+
+    if (messages.size() < Messages.RESULT_SET_CHUNK_SIZE) {
+      messages.addAll(this.messagesCache.get(destination, destinationDevice, cursor.getCacheId(), Messages.RESULT_SET_CHUNK_SIZE - messages.size()));
     }
 
     return new OutgoingMessageEntityList(messages, messages.size() >= Messages.RESULT_SET_CHUNK_SIZE);
@@ -77,9 +114,27 @@ public class MessagesManager {
     return removed;
   }
 
-  public void delete(String destination, long deviceId, long id, boolean cached) {
+  public List<OutgoingMessageEntity> delete(String destination, long destinationDevice, List<Pair<String, Long>> senders) {
+    List<OutgoingMessageEntity> removed = this.messagesCache.remove(destination, destinationDevice, senders);
+    Set<Pair<String, Long>>     missed  = new HashSet<>(senders);
+
+    for (OutgoingMessageEntity message : removed) {
+      missed.remove(new Pair<>(message.getSource(), message.getTimestamp()));
+    }
+
+    cacheHitByNameMeter.mark(senders.size() - missed.size());
+
+    if (!missed.isEmpty()) {
+      removed.addAll(this.messages.remove(destination, destinationDevice, new LinkedList<>(missed)));
+      cacheMissByNameMeter.mark(missed.size());
+    }
+
+    return removed;
+  }
+
+  public void delete(String destination, long deviceId, long id, boolean cached, int cachedQueue) {
     if (cached) {
-      this.messagesCache.remove(destination, deviceId, id);
+      this.messagesCache.remove(destination, deviceId, cachedQueue, id);
       cacheHitByIdMeter.mark();
     } else {
       this.messages.remove(destination, id);
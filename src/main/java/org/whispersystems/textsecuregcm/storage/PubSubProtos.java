@@ -166,6 +166,10 @@ public final class PubSubProtos {
        * <code>CONNECTED = 5;</code>
        */
       CONNECTED(5, 5),
+      /**
+       * <code>INVALIDATE = 6;</code>
+       */
+      INVALIDATE(6, 6),
       ;
 
       /**
@@ -192,6 +196,10 @@ public final class PubSubProtos {
        * <code>CONNECTED = 5;</code>
        */
       public static final int CONNECTED_VALUE = 5;
+      /**
+       * <code>INVALIDATE = 6;</code>
+       */
+      public static final int INVALIDATE_VALUE = 6;
 
 
       public final int getNumber() { return value; }
@@ -204,6 +212,7 @@ public final class PubSubProtos {
           case 3: return KEEPALIVE;
           case 4: return CLOSE;
           case 5: return CONNECTED;
+          case 6: return INVALIDATE;
           default: return null;
         }
       }
@@ -629,13 +638,13 @@ public final class PubSubProtos {
       descriptor;
   static {
     java.lang.String[] descriptorData = {
-      "\n\023PubSubMessage.proto\022\ntextsecure\"\247\001\n\rPu" +
+      "\n\023PubSubMessage.proto\022\ntextsecure\"\267\001\n\rPu" +
       "bSubMessage\022,\n\004type\030\001 \001(\0162\036.textsecure.P" +
-      "ubSubMessage.Type\022\017\n\007content\030\002 \001(\014\"W\n\004Ty" +
+      "ubSubMessage.Type\022\017\n\007content\030\002 \001(\014\"g\n\004Ty" +
       "pe\022\013\n\007UNKNOWN\020\000\022\014\n\010QUERY_DB\020\001\022\013\n\007DELIVER" +
       "\020\002\022\r\n\tKEEPALIVE\020\003\022\t\n\005CLOSE\020\004\022\r\n\tCONNECTE" +
-      "D\020\005B8\n(org.whispersystems.textsecuregcm." +
-      "storageB\014PubSubProtos"
+      "D\020\005\022\016\n\nINVALIDATE\020\006B8\n(org.whispersystem" +
+      "s.textsecuregcm.storageB\014PubSubProtos"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -0,0 +1,67 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.util.Constants;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Tracks how far a read replica trails the primary, so that reads are only
+ * routed to it while it's close enough to be trusted.
+ */
+public class ReplicaLagMonitor implements Managed, Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+  private static final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate(Constants.METRICS_NAME);
+
+  private static final int INTERVAL_MILLIS = 1000;
+
+  private final ReplicaStatus replicaStatus;
+  private final long          maxLagMillis;
+  private final AtomicLong    lagMillis = new AtomicLong(Long.MAX_VALUE);
+
+  private ScheduledExecutorService executor;
+
+  public ReplicaLagMonitor(String name, ReplicaStatus replicaStatus, long maxLagMillis) {
+    this.replicaStatus = replicaStatus;
+    this.maxLagMillis  = maxLagMillis;
+
+    metricRegistry.register(name(ReplicaLagMonitor.class, name, "lagMillis"), (Gauge<Long>)lagMillis::get);
+  }
+
+  public boolean isAvailable() {
+    return lagMillis.get() <= maxLagMillis;
+  }
+
+  @Override
+  public void start() throws Exception {
+    this.executor = Executors.newSingleThreadScheduledExecutor();
+    this.executor.scheduleWithFixedDelay(this, 0, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() throws Exception {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public void run() {
+    try {
+      lagMillis.set(replicaStatus.getReplicationLagMillis());
+    } catch (Throwable t) {
+      logger.warn("Unable to check replica lag", t);
+      lagMillis.set(Long.MAX_VALUE);
+    }
+  }
+}
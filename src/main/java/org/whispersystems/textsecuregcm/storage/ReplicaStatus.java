@@ -0,0 +1,11 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+
+public abstract class ReplicaStatus {
+
+  @SqlQuery("SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE (extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000)\\:\\:bigint END")
+  public abstract long getReplicationLagMillis();
+
+}
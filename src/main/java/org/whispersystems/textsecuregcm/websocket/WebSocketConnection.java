@@ -4,6 +4,7 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.base.Optional;
+import com.google.common.base.Strings;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -24,6 +25,7 @@ import org.whispersystems.textsecuregcm.push.ReceiptSender;
 import org.whispersystems.textsecuregcm.push.TransientPushFailureException;
 import org.whispersystems.textsecuregcm.storage.Account;
 import org.whispersystems.textsecuregcm.storage.Device;
+import org.whispersystems.textsecuregcm.storage.MessageCursor;
 import org.whispersystems.textsecuregcm.storage.MessagesManager;
 import org.whispersystems.textsecuregcm.util.Constants;
 import org.whispersystems.websocket.WebSocketClient;
@@ -82,7 +84,7 @@ public class WebSocketConnection implements DispatchChannel {
           processStoredMessages();
           break;
         case PubSubMessage.Type.DELIVER_VALUE:
-          sendMessage(Envelope.parseFrom(pubSubMessage.getContent()), Optional.absent(), false);
+          sendMessage(Envelope.parseFrom(pubSubMessage.getContent()), Optional.absent(), Optional.absent());
           break;
         case PubSubMessage.Type.CONNECTED_VALUE:
           if (pubSubMessage.hasContent() && !new String(pubSubMessage.getContent().toByteArray()).equals(connectionId)) {
@@ -108,34 +110,49 @@ public class WebSocketConnection implements DispatchChannel {
 
   private void sendMessage(final Envelope                    message,
                            final Optional<StoredMessageInfo> storedMessageInfo,
-                           final boolean                     requery)
+                           final Optional<MessageCursor>     requery)
+  {
+    sendMessage(message.toByteArray(), message.getSource(), message.getTimestamp(),
+                message.hasRelay() ? Optional.of(message.getRelay()) : Optional.absent(),
+                message.getType() == Envelope.Type.RECEIPT, storedMessageInfo, requery);
+  }
+
+  private void sendMessage(final byte[]                      serializedMessage,
+                           final String                      source,
+                           final long                        timestamp,
+                           final Optional<String>            relay,
+                           final boolean                     isReceipt,
+                           final Optional<StoredMessageInfo> storedMessageInfo,
+                           final Optional<MessageCursor>     requery)
   {
     try {
-      EncryptedOutgoingMessage                   encryptedMessage = new EncryptedOutgoingMessage(message, device.getSignalingKey());
+      EncryptedOutgoingMessage                   encryptedMessage = new EncryptedOutgoingMessage(serializedMessage, device.getSignalingKey());
       Optional<byte[]>                           body             = Optional.fromNullable(encryptedMessage.toByteArray());
       ListenableFuture<WebSocketResponseMessage> response         = client.sendRequest("PUT", "/api/v1/message", null, body);
 
       Futures.addCallback(response, new FutureCallback<WebSocketResponseMessage>() {
         @Override
         public void onSuccess(@Nullable WebSocketResponseMessage response) {
-          boolean isReceipt = message.getType() == Envelope.Type.RECEIPT;
-
-          if (isSuccessResponse(response) && !isReceipt) {
-            messageTime.update(System.currentTimeMillis() - message.getTimestamp());
+          if (isSuccessResponse(response)) {
+            onDelivered();
+          } else if (!storedMessageInfo.isPresent()) {
+            requeueMessage(serializedMessage);
           }
+        }
 
-          if (isSuccessResponse(response)) {
-            if (storedMessageInfo.isPresent()) messagesManager.delete(account.getNumber(), device.getId(), storedMessageInfo.get().id, storedMessageInfo.get().cached);
-            if (!isReceipt)                    sendDeliveryReceiptFor(message);
-            if (requery)                       processStoredMessages();
-          } else if (!isSuccessResponse(response) && !storedMessageInfo.isPresent()) {
-            requeueMessage(message);
+        private void onDelivered() {
+          if (!isReceipt) {
+            messageTime.update(System.currentTimeMillis() - timestamp);
           }
+
+          if (storedMessageInfo.isPresent()) deleteStoredMessage(storedMessageInfo.get());
+          if (!isReceipt)                    sendDeliveryReceiptFor(source, timestamp, relay);
+          if (requery.isPresent())           processStoredMessages(requery.get());
         }
 
         @Override
         public void onFailure(@Nonnull Throwable throwable) {
-          if (!storedMessageInfo.isPresent()) requeueMessage(message);
+          if (!storedMessageInfo.isPresent()) requeueMessage(serializedMessage);
         }
 
         private boolean isSuccessResponse(WebSocketResponseMessage response) {
@@ -147,21 +164,23 @@ public class WebSocketConnection implements DispatchChannel {
     }
   }
 
-  private void requeueMessage(Envelope message) {
-    pushSender.getWebSocketSender().queueMessage(account, device, message);
-
+  private void requeueMessage(byte[] serializedMessage) {
     try {
+      pushSender.getWebSocketSender().queueMessage(account, device, Envelope.parseFrom(serializedMessage));
       pushSender.sendQueuedNotification(account, device);
-    } catch (NotPushRegisteredException e) {
+    } catch (InvalidProtocolBufferException | NotPushRegisteredException e) {
       logger.warn("requeueMessage", e);
     }
   }
 
-  private void sendDeliveryReceiptFor(Envelope message) {
+  private void deleteStoredMessage(StoredMessageInfo storedMessageInfo) {
+    messagesManager.delete(account.getNumber(), device.getId(), storedMessageInfo.id,
+                           storedMessageInfo.cached, storedMessageInfo.cachedQueue);
+  }
+
+  private void sendDeliveryReceiptFor(String source, long timestamp, Optional<String> relay) {
     try {
-      receiptSender.sendReceipt(account, message.getSource(), message.getTimestamp(),
-                                message.hasRelay() ? Optional.of(message.getRelay()) :
-                                                     Optional.absent());
+      receiptSender.sendReceipt(account, source, timestamp, relay);
     } catch (NoSuchUserException | NotPushRegisteredException  e) {
       logger.info("No longer registered " + e.getMessage());
     } catch(IOException | TransientPushFailureException e) {
@@ -172,16 +191,34 @@ public class WebSocketConnection implements DispatchChannel {
   }
 
   private void processStoredMessages() {
-    OutgoingMessageEntityList       messages = messagesManager.getMessagesForDevice(account.getNumber(), device.getId());
+    processStoredMessages(messagesManager.getMessagesForDevice(account.getNumber(), device.getId()), MessageCursor.START);
+  }
+
+  private void processStoredMessages(MessageCursor cursor) {
+    processStoredMessages(messagesManager.getMessagesForDevice(account.getNumber(), device.getId(), cursor), cursor);
+  }
+
+  private void processStoredMessages(OutgoingMessageEntityList messages, MessageCursor cursor) {
     Iterator<OutgoingMessageEntity> iterator = messages.getMessages().iterator();
+    MessageCursor                   next     = cursor.advance(messages.getMessages());
 
     while (iterator.hasNext()) {
-      OutgoingMessageEntity message = iterator.next();
-      Envelope.Builder      builder = Envelope.newBuilder()
-                                              .setType(Envelope.Type.valueOf(message.getType()))
-                                              .setSourceDevice(message.getSourceDevice())
-                                              .setSource(message.getSource())
-                                              .setTimestamp(message.getTimestamp());
+      OutgoingMessageEntity   message           = iterator.next();
+      StoredMessageInfo       storedMessageInfo = new StoredMessageInfo(message.getId(), message.isCached(), message.getCachedQueue());
+      Optional<MessageCursor> requery           = !iterator.hasNext() && messages.hasMore() ? Optional.of(next) : Optional.absent();
+
+      if (message.getSerializedEnvelope().isPresent()) {
+        sendMessage(message.getSerializedEnvelope().get(), message.getSource(), message.getTimestamp(),
+                    Optional.fromNullable(Strings.emptyToNull(message.getRelay())),
+                    message.getType() == Envelope.Type.RECEIPT_VALUE, Optional.of(storedMessageInfo), requery);
+        continue;
+      }
+
+      Envelope.Builder builder = Envelope.newBuilder()
+                                         .setType(Envelope.Type.valueOf(message.getType()))
+                                         .setSourceDevice(message.getSourceDevice())
+                                         .setSource(message.getSource())
+                                         .setTimestamp(message.getTimestamp());
 
       if (message.getMessage() != null) {
         builder.setLegacyMessage(ByteString.copyFrom(message.getMessage()));
@@ -195,7 +232,7 @@ public class WebSocketConnection implements DispatchChannel {
         builder.setRelay(message.getRelay());
       }
 
-      sendMessage(builder.build(), Optional.of(new StoredMessageInfo(message.getId(), message.isCached())), !iterator.hasNext() && messages.hasMore());
+      sendMessage(builder.build(), Optional.of(storedMessageInfo), requery);
     }
 
     if (!messages.hasMore()) {
@@ -206,10 +243,12 @@ public class WebSocketConnection implements DispatchChannel {
   private static class StoredMessageInfo {
     private final long    id;
     private final boolean cached;
+    private final int     cachedQueue;
 
-    private StoredMessageInfo(long id, boolean cached) {
-      this.id     = id;
-      this.cached = cached;
+    private StoredMessageInfo(long id, boolean cached, int cachedQueue) {
+      this.id          = id;
+      this.cached      = cached;
+      this.cachedQueue = cachedQueue;
     }
   }
 }
@@ -0,0 +1,120 @@
+package org.whispersystems.textsecuregcm.workers;
+
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.whispersystems.textsecuregcm.WhisperServerConfiguration;
+import org.whispersystems.textsecuregcm.storage.Messages;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copies messages from another Postgres message store into the configured
+ * one. Rows are streamed straight from a binary COPY out of the source into
+ * a binary COPY into the destination, without being decoded in between.
+ */
+public class CopyMessagesCommand extends ConfiguredCommand<WhisperServerConfiguration> {
+
+  // Read from the environment, so that it doesn't show up in the process list
+  private static final String SOURCE_PASSWORD_VARIABLE = "COPY_MESSAGES_SOURCE_PASSWORD";
+
+  private final Logger logger = LoggerFactory.getLogger(CopyMessagesCommand.class);
+
+  public CopyMessagesCommand() {
+    super("copymessages", "Copy messages from another message store");
+  }
+
+  @Override
+  public void configure(Subparser subparser) {
+    super.configure(subparser);
+    subparser.addArgument("--source-url")
+             .dest("sourceUrl")
+             .type(String.class)
+             .required(true)
+             .help("The JDBC URL of the message store to copy from");
+
+    subparser.addArgument("--source-user")
+             .dest("sourceUser")
+             .type(String.class)
+             .required(true)
+             .help("The user for the message store to copy from");
+
+    subparser.addArgument("--since")
+             .dest("since")
+             .type(Long.class)
+             .setDefault(0L)
+             .help("Only copy messages with a timestamp at or after this one");
+  }
+
+  @Override
+  protected void run(Bootstrap<WhisperServerConfiguration> bootstrap,
+                     Namespace namespace,
+                     WhisperServerConfiguration config)
+      throws Exception
+  {
+    DataSourceFactory messageDbConfig = config.getMessageStore();
+    String            sourcePassword  = System.getenv(SOURCE_PASSWORD_VARIABLE);
+
+    if (sourcePassword == null) {
+      throw new IllegalArgumentException("Set " + SOURCE_PASSWORD_VARIABLE + " to the password for the message store to copy from");
+    }
+
+    try (Connection source      = DriverManager.getConnection(namespace.getString("sourceUrl"), namespace.getString("sourceUser"), sourcePassword);
+         Connection destination = DriverManager.getConnection(messageDbConfig.getUrl(), messageDbConfig.getUser(), messageDbConfig.getPassword()))
+    {
+      CopyManager                sourceCopy      = source.unwrap(PGConnection.class).getCopyAPI();
+      CopyManager                destinationCopy = destination.unwrap(PGConnection.class).getCopyAPI();
+      PipedInputStream           input           = new PipedInputStream(1024 * 1024);
+      PipedOutputStream          output          = new PipedOutputStream(input);
+      AtomicReference<Exception> exportFailure   = new AtomicReference<>();
+      long                       since           = namespace.getLong("since");
+      long                       start           = System.currentTimeMillis();
+
+      Thread exporter = new Thread(() -> {
+        try {
+          sourceCopy.copyOut("COPY (SELECT " + Messages.COPY_COLUMNS + " FROM messages WHERE timestamp >= " + since + ") TO STDOUT (FORMAT binary)", output);
+        } catch (Exception e) {
+          exportFailure.set(e);
+        } finally {
+          try {
+            output.close();
+          } catch (IOException e) {
+            logger.warn("Closing pipe", e);
+          }
+        }
+      });
+
+      logger.info("Copying messages since " + since + "...");
+
+      exporter.start();
+
+      long copied;
+
+      try {
+        copied = destinationCopy.copyIn("COPY messages (" + Messages.COPY_COLUMNS + ") FROM STDIN (FORMAT binary)", input);
+      } finally {
+        // If the import fails, closing the pipe fails the exporter's next write
+        // instead of leaving it blocked on a full buffer
+        input.close();
+        exporter.join();
+      }
+
+      if (exportFailure.get() != null) {
+        throw exportFailure.get();
+      }
+
+      logger.info("Copied " + copied + " messages in " + (System.currentTimeMillis() - start) + "ms");
+    }
+  }
+}
@@ -87,9 +87,11 @@ public class DeleteUserCommand extends EnvironmentCommand<WhisperServerConfigura
             device.get().setFetchesMessages(false);
             device.get().setAuthenticationCredentials(new AuthenticationCredentials(Base64.encodeBytes(random)));
 
-            accountsManager.update(account.get());
-
-            logger.warn("Removed " + account.get().getNumber());
+            if (accountsManager.update(account.get())) {
+              logger.warn("Removed " + account.get().getNumber());
+            } else {
+              logger.warn("Account changed concurrently, not removed: " + account.get().getNumber());
+            }
           } else {
             logger.warn("No primary device found...");
           }
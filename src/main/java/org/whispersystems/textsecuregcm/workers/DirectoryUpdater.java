@@ -57,13 +57,13 @@ public class DirectoryUpdater {
 
     try {
       logger.info("Updating from local DB.");
-      int offset = 0;
+      String lastNumber = "";
 
       for (;;) {
-        List<Account> accounts = accountsManager.getAll(offset, CHUNK_SIZE);
+        List<Account> accounts = accountsManager.getAllFrom(lastNumber, CHUNK_SIZE);
 
         if (accounts == null || accounts.isEmpty()) break;
-        else                                        offset += accounts.size();
+        else                                        lastNumber = accounts.get(accounts.size() - 1).getNumber();
 
         for (Account account : accounts) {
           if (account.isActive()) {
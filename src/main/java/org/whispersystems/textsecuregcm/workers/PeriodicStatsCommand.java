@@ -3,6 +3,7 @@ package org.whispersystems.textsecuregcm.workers;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.ScheduledReporter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.google.common.base.Optional;
 import io.dropwizard.Application;
 import io.dropwizard.cli.EnvironmentCommand;
 import io.dropwizard.db.DataSourceFactory;
@@ -12,19 +13,29 @@ import io.dropwizard.jdbi.OptionalContainerFactory;
 import io.dropwizard.jdbi.args.OptionalArgumentFactory;
 import io.dropwizard.metrics.ReporterFactory;
 import io.dropwizard.setup.Environment;
+import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
 import org.skife.jdbi.v2.DBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.whispersystems.textsecuregcm.WhisperServerConfiguration;
+import org.whispersystems.textsecuregcm.providers.RedisClientFactory;
+import org.whispersystems.textsecuregcm.redis.ReplicatedJedisPool;
+import org.whispersystems.textsecuregcm.storage.Account;
 import org.whispersystems.textsecuregcm.storage.Accounts;
+import org.whispersystems.textsecuregcm.storage.ActivityStats;
+import org.whispersystems.textsecuregcm.storage.Device;
 
+import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
 public class PeriodicStatsCommand extends EnvironmentCommand<WhisperServerConfiguration> {
 
+  private static final int BACKFILL_BATCH_SIZE = 10000;
+
   private final Logger logger = LoggerFactory.getLogger(PeriodicStatsCommand.class);
 
   public PeriodicStatsCommand() {
@@ -38,104 +49,135 @@ public class PeriodicStatsCommand extends EnvironmentCommand<WhisperServerConfig
     }, "stats", "Update periodic stats.");
   }
 
+  @Override
+  public void configure(Subparser subparser) {
+    super.configure(subparser);
+    subparser.addArgument("-s", "--scan")
+             .dest("scan")
+             .action(Arguments.storeTrue())
+             .help("Count by scanning every account on the read database, and backfill the activity HyperLogLogs from it");
+  }
+
   @Override
   protected void run(Environment environment, Namespace namespace,
                      WhisperServerConfiguration configuration)
       throws Exception
   {
+    ReplicatedJedisPool cacheClient = null;
+
     try {
       environment.getObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-      DataSourceFactory dbConfig = configuration.getRead_database();
+      cacheClient = new RedisClientFactory(configuration.getCache().getUrl(), configuration.getCache().getReplicaUrls()).getRedisClientPool();
 
-      if (dbConfig == null) {
-        logger.warn("No slave database configuration found!");
-        return;
-      }
+      ActivityStats activityStats = new ActivityStats(cacheClient);
+
+      long yesterday = TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis()) - 1;
+      long monthAgo  = yesterday - 30;
+
+      final long dailyActiveAndroid, dailyActiveIos, monthlyActiveAndroid, monthlyActiveIos;
+      final long dailyActiveNoSignedKeys, monthlyActiveNoSignedKeys;
+
+      if (namespace.getBoolean("scan")) {
+        DataSourceFactory dbConfig = configuration.getRead_database();
+
+        if (dbConfig == null) {
+          logger.warn("No slave database configuration found!");
+          return;
+        }
+
+        DBI dbi = new DBI(dbConfig.getUrl(), dbConfig.getUser(), dbConfig.getPassword());
+        dbi.registerArgumentFactory(new OptionalArgumentFactory(dbConfig.getDriverClass()));
+        dbi.registerContainerFactory(new ImmutableListContainerFactory());
+        dbi.registerContainerFactory(new ImmutableSetContainerFactory());
+        dbi.registerContainerFactory(new OptionalContainerFactory());
 
-      DBI dbi = new DBI(dbConfig.getUrl(), dbConfig.getUser(), dbConfig.getPassword());
-      dbi.registerArgumentFactory(new OptionalArgumentFactory(dbConfig.getDriverClass()));
-      dbi.registerContainerFactory(new ImmutableListContainerFactory());
-      dbi.registerContainerFactory(new ImmutableSetContainerFactory());
-      dbi.registerContainerFactory(new OptionalContainerFactory());
+        Accounts accounts = dbi.onDemand(Accounts.class);
 
-      Accounts accounts  = dbi.onDemand(Accounts.class);
-      long     yesterday = TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis()) - 1;
-      long     monthAgo  = yesterday - 30;
+        logger.info("Calculating daily active");
+        dailyActiveAndroid = accounts.getAndroidActiveSinceCount(TimeUnit.DAYS.toMillis(yesterday));
+        dailyActiveIos     = accounts.getIosActiveSinceCount(TimeUnit.DAYS.toMillis(yesterday));
 
-      logger.info("Calculating daily active");
-      final int dailyActiveAndroid = accounts.getAndroidActiveSinceCount(TimeUnit.DAYS.toMillis(yesterday));
-      final int dailyActiveIos     = accounts.getIosActiveSinceCount(TimeUnit.DAYS.toMillis(yesterday));
+        logger.info("Calculating monthly active");
+        monthlyActiveAndroid = accounts.getAndroidActiveSinceCount(TimeUnit.DAYS.toMillis(monthAgo));
+        monthlyActiveIos     = accounts.getIosActiveSinceCount(TimeUnit.DAYS.toMillis(monthAgo));
 
-      logger.info("Calculating monthly active");
-      final int monthlyActiveAndroid = accounts.getAndroidActiveSinceCount(TimeUnit.DAYS.toMillis(monthAgo));
-      final int monthlyActiveIos     = accounts.getIosActiveSinceCount(TimeUnit.DAYS.toMillis(monthAgo));
+        logger.info("Calculating daily signed keys");
+        dailyActiveNoSignedKeys   = accounts.getUnsignedKeysCount(TimeUnit.DAYS.toMillis(yesterday));
+        logger.info("Calculating monthly signed keys");
+        monthlyActiveNoSignedKeys = accounts.getUnsignedKeysCount(TimeUnit.DAYS.toMillis(monthAgo ));
 
-      logger.info("Calculating daily signed keys");
-      final int dailyActiveNoSignedKeys   = accounts.getUnsignedKeysCount(TimeUnit.DAYS.toMillis(yesterday));
-      logger.info("Calculating monthly signed keys");
-      final int monthlyActiveNoSignedKeys = accounts.getUnsignedKeysCount(TimeUnit.DAYS.toMillis(monthAgo ));
+        logger.info("Backfilling activity");
+        backfill(accounts, activityStats, TimeUnit.DAYS.toMillis(monthAgo));
+      } else {
+        dailyActiveAndroid        = activityStats.getCount(ActivityStats.ANDROID, yesterday);
+        dailyActiveIos            = activityStats.getCount(ActivityStats.IOS, yesterday);
+        monthlyActiveAndroid      = activityStats.getCount(ActivityStats.ANDROID, monthAgo);
+        monthlyActiveIos          = activityStats.getCount(ActivityStats.IOS, monthAgo);
+        dailyActiveNoSignedKeys   = activityStats.getCount(ActivityStats.UNSIGNED_KEYS, yesterday);
+        monthlyActiveNoSignedKeys = activityStats.getCount(ActivityStats.UNSIGNED_KEYS, monthAgo);
+      }
 
       environment.metrics().register(name(PeriodicStatsCommand.class, "daily_active"),
-                                     new Gauge<Integer>() {
+                                     new Gauge<Long>() {
                                        @Override
-                                       public Integer getValue() {
+                                       public Long getValue() {
                                          return dailyActiveAndroid + dailyActiveIos;
                                        }
                                      });
 
       environment.metrics().register(name(PeriodicStatsCommand.class, "daily_active_android"),
-                                     new Gauge<Integer>() {
+                                     new Gauge<Long>() {
                                        @Override
-                                       public Integer getValue() {
+                                       public Long getValue() {
                                          return dailyActiveAndroid;
                                        }
                                      });
 
       environment.metrics().register(name(PeriodicStatsCommand.class, "daily_active_ios"),
-                                     new Gauge<Integer>() {
+                                     new Gauge<Long>() {
                                        @Override
-                                       public Integer getValue() {
+                                       public Long getValue() {
                                          return dailyActiveIos;
                                        }
                                      });
 
       environment.metrics().register(name(PeriodicStatsCommand.class, "monthly_active"),
-                                     new Gauge<Integer>() {
+                                     new Gauge<Long>() {
                                        @Override
-                                       public Integer getValue() {
+                                       public Long getValue() {
                                          return monthlyActiveAndroid + monthlyActiveIos;
                                        }
                                      });
 
       environment.metrics().register(name(PeriodicStatsCommand.class, "monthly_active_android"),
-                                     new Gauge<Integer>() {
+                                     new Gauge<Long>() {
                                        @Override
-                                       public Integer getValue() {
+                                       public Long getValue() {
                                          return monthlyActiveAndroid;
                                        }
                                      });
 
       environment.metrics().register(name(PeriodicStatsCommand.class, "monthly_active_ios"),
-                                     new Gauge<Integer>() {
+                                     new Gauge<Long>() {
                                        @Override
-                                       public Integer getValue() {
+                                       public Long getValue() {
                                          return monthlyActiveIos;
                                        }
                                      });
 
       environment.metrics().register(name(PeriodicStatsCommand.class, "daily_no_signed_keys"),
-                                     new Gauge<Integer>() {
+                                     new Gauge<Long>() {
                                        @Override
-                                       public Integer getValue() {
+                                       public Long getValue() {
                                          return dailyActiveNoSignedKeys;
                                        }
                                      });
 
       environment.metrics().register(name(PeriodicStatsCommand.class, "monthly_no_signed_keys"),
-                                     new Gauge<Integer>() {
+                                     new Gauge<Long>() {
                                        @Override
-                                       public Integer getValue() {
+                                       public Long getValue() {
                                          return monthlyActiveNoSignedKeys;
                                        }
                                      });
@@ -152,8 +194,32 @@ public class PeriodicStatsCommand extends EnvironmentCommand<WhisperServerConfig
       logger.warn("Directory Exception", ex);
       throw new RuntimeException(ex);
     } finally {
+      if (cacheClient != null) cacheClient.close();
+
       Thread.sleep(3000);
       System.exit(0);
     }
   }
+
+  // Adds each master device seen in the last month to the HyperLogLog for the day it
+  // was last seen, which is all the "active since" counts need from it.
+  private void backfill(Accounts accounts, ActivityStats activityStats, long since) {
+    Iterator<Account> iterator = accounts.getAll();
+    int               count    = 0;
+
+    while (iterator.hasNext()) {
+      Account          account = iterator.next();
+      Optional<Device> master  = account.getMasterDevice();
+
+      if (master.isPresent() && master.get().getLastSeen() >= since) {
+        activityStats.onSeen(account.getNumber(), master.get(), master.get().getLastSeen());
+      }
+
+      if (++count % BACKFILL_BATCH_SIZE == 0) {
+        activityStats.run();
+      }
+    }
+
+    activityStats.run();
+  }
 }
@@ -40,6 +40,13 @@ public class TrimMessagesCommand extends ConfiguredCommand<WhisperServerConfigur
     Messages messages  = messageDbi.onDemand(Messages.class);
     long     timestamp = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(60);
 
+    logger.info("Creating upcoming partitions...");
+    logger.info("Created " + messages.createPartitions(Messages.PARTITIONS_AHEAD_DAYS) + " partitions");
+
+    logger.info("Dropping partitions before: " + timestamp + "...");
+    logger.info("Dropped " + messages.dropPartitions(timestamp) + " partitions");
+
+    // Only the legacy and default partitions can still hold rows this old
     logger.info("Trimming old messages: " + timestamp + "...");
     messages.removeOld(timestamp);
 
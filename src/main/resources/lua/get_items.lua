@@ -1,5 +1,5 @@
 -- keys: queue_key, queue_locked_key
--- argv: limit
+-- argv: limit, after_id
 
 local locked = redis.call("GET", KEYS[2])
 
@@ -7,4 +7,4 @@ if locked then
     return {}
 end
 
-return redis.call("ZRANGE", KEYS[1], 0, ARGV[1], "WITHSCORES")
\ No newline at end of file
+return redis.call("ZRANGEBYSCORE", KEYS[1], "(" .. ARGV[2], "+inf", "WITHSCORES", "LIMIT", 0, ARGV[1])
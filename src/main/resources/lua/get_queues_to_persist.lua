@@ -1,10 +1,12 @@
 -- keys: queue_total_index
--- argv: max_time, limit
+-- argv: max_time, limit, lease_expiry_time
 
 local results = redis.call("ZRANGEBYSCORE", KEYS[1], 0, ARGV[1], "LIMIT", 0, ARGV[2])
 
 if results and next(results) then
-    redis.call("ZREM", KEYS[1], unpack(results))
+    for i = 1, #results do
+        redis.call("ZADD", KEYS[1], "XX", ARGV[3], results[i])
+    end
 end
 
 return results
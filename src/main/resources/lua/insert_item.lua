@@ -1,13 +1,45 @@
--- keys: queue_key, queue_metadata_key, queue_total_index
--- argv: message, current_time, sender_key
+-- keys: queue_key, queue_metadata_key, queue_total_index, account_queues_key, persist_in_progress_key
+-- argv: message, current_time, sender_key, device_id, max_queue_size, max_queue_bytes, min_message_id
+
+local queueSize  = redis.call("ZCARD", KEYS[1])
+local queueBytes = tonumber(redis.call("HGET", KEYS[2], "bytes"))
+
+-- Queues written before byte accounting have no total yet, so count it once here
+if not queueBytes then
+    queueBytes = 0
+
+    for _, message in ipairs(redis.call("ZRANGE", KEYS[1], 0, -1)) do
+        queueBytes = queueBytes + #message
+    end
+
+    redis.call("HSET", KEYS[2], "bytes", queueBytes)
+end
+
+if queueSize >= tonumber(ARGV[5]) or queueBytes + #ARGV[1] > tonumber(ARGV[6]) then
+    -- Over the cap: the caller stores the message elsewhere, and the queue is
+    -- made due for persistence now unless a persister is already draining it
+    if redis.call("EXISTS", KEYS[5]) == 0 then
+        redis.call("ZADD", KEYS[3], "XX", 0, KEYS[1])
+    end
+
+    return -1
+end
+
+-- Ids continue from the device's older queues, which are still read alongside this one
+if tonumber(redis.call("HGET", KEYS[2], "counter") or "0") < tonumber(ARGV[7]) then
+    redis.call("HSET", KEYS[2], "counter", ARGV[7])
+end
 
 local messageId = redis.call("HINCRBY", KEYS[2], "counter", 1)
 redis.call("ZADD", KEYS[1], "NX", messageId, ARGV[1])
 redis.call("HSET", KEYS[2], ARGV[3], messageId)
 redis.call("HSET", KEYS[2], messageId, ARGV[3])
+redis.call("HINCRBY", KEYS[2], "bytes", #ARGV[1])
+redis.call("SADD", KEYS[4], ARGV[4])
 
 redis.call("EXPIRE", KEYS[1], 7776000)
 redis.call("EXPIRE", KEYS[2], 7776000)
+redis.call("EXPIRE", KEYS[4], 7776000)
 
 redis.call("ZADD", KEYS[3], "NX", ARGV[2], KEYS[1])
-return messageId
\ No newline at end of file
+return messageId
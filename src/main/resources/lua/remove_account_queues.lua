@@ -0,0 +1,14 @@
+-- keys: account_queues_key, queue_index, then queue_key and queue_metadata_key for each device
+-- argv: device_id for each device, in the same order
+
+for i = 1, #ARGV do
+    local queueKey = KEYS[1 + (i * 2)]
+
+    redis.call("DEL", queueKey)
+    redis.call("DEL", KEYS[2 + (i * 2)])
+    redis.call("ZREM", KEYS[2], queueKey)
+    redis.call("SREM", KEYS[1], ARGV[i])
+end
+
+-- Devices that queued a message after the caller listed them
+return redis.call("SMEMBERS", KEYS[1])
@@ -1,6 +1,14 @@
 -- keys: queue_key, queue_metadata_key, queue_index
 -- argv: index_to_remove
 
+-- Queues written before byte accounting have no total to decrement, and never go below zero
+local function removeBytes(count)
+    if redis.call("HEXISTS", KEYS[2], "bytes") == 1 and redis.call("HINCRBY", KEYS[2], "bytes", -count) < 0 then
+        redis.call("HSET", KEYS[2], "bytes", 0)
+    end
+end
+
+local envelope     = redis.call("ZRANGEBYSCORE", KEYS[1], ARGV[1], ARGV[1], "LIMIT", 0, 1)
 local removedCount = redis.call("ZREMRANGEBYSCORE", KEYS[1], ARGV[1], ARGV[1])
 local senderIndex  = redis.call("HGET", KEYS[2], ARGV[1])
 
@@ -9,8 +17,13 @@ if senderIndex then
     redis.call("HDEL", KEYS[2], ARGV[1])
 end
 
+if envelope and next(envelope) then
+    removeBytes(#envelope[1])
+end
+
 if (redis.call("ZCARD", KEYS[1]) == 0) then
     redis.call("ZREM", KEYS[3], KEYS[1])
+    redis.call("HDEL", KEYS[2], "bytes")
 end
 
 return removedCount > 0
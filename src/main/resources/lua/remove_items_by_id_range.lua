@@ -0,0 +1,34 @@
+-- keys: queue_key, queue_metadata_key, queue_index
+-- argv: min_index_to_remove, max_index_to_remove
+
+-- Queues written before byte accounting have no total to decrement, and never go below zero
+local function removeBytes(count)
+    if redis.call("HEXISTS", KEYS[2], "bytes") == 1 and redis.call("HINCRBY", KEYS[2], "bytes", -count) < 0 then
+        redis.call("HSET", KEYS[2], "bytes", 0)
+    end
+end
+
+local removed      = redis.call("ZRANGEBYSCORE", KEYS[1], ARGV[1], ARGV[2], "WITHSCORES")
+local removedBytes = 0
+
+for i = 2, #removed, 2 do
+    local senderIndex = redis.call("HGET", KEYS[2], removed[i])
+
+    if senderIndex then
+        redis.call("HDEL", KEYS[2], senderIndex)
+        redis.call("HDEL", KEYS[2], removed[i])
+    end
+
+    removedBytes = removedBytes + #removed[i - 1]
+end
+
+redis.call("ZREMRANGEBYSCORE", KEYS[1], ARGV[1], ARGV[2])
+
+if (redis.call("ZCARD", KEYS[1]) == 0) then
+    redis.call("ZREM", KEYS[3], KEYS[1])
+    redis.call("HDEL", KEYS[2], "bytes")
+elseif removedBytes > 0 then
+    removeBytes(removedBytes)
+end
+
+return #removed / 2
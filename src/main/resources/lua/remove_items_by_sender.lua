@@ -0,0 +1,35 @@
+-- keys: queue_key, queue_metadata_key, queue_index
+-- argv: senders_to_remove...
+
+-- Queues written before byte accounting have no total to decrement, and never go below zero
+local function removeBytes(count)
+    if redis.call("HEXISTS", KEYS[2], "bytes") == 1 and redis.call("HINCRBY", KEYS[2], "bytes", -count) < 0 then
+        redis.call("HSET", KEYS[2], "bytes", 0)
+    end
+end
+
+local removed = {}
+
+for i = 1, #ARGV do
+    local messageId = redis.call("HGET", KEYS[2], ARGV[i])
+
+    if messageId then
+        local envelope = redis.call("ZRANGEBYSCORE", KEYS[1], messageId, messageId, "LIMIT", 0, 1)
+
+        redis.call("ZREMRANGEBYSCORE", KEYS[1], messageId, messageId)
+        redis.call("HDEL", KEYS[2], ARGV[i])
+        redis.call("HDEL", KEYS[2], messageId)
+
+        if envelope and next(envelope) then
+            removeBytes(#envelope[1])
+            removed[#removed + 1] = envelope[1]
+        end
+    end
+end
+
+if (redis.call("ZCARD", KEYS[1]) == 0) then
+    redis.call("ZREM", KEYS[3], KEYS[1])
+    redis.call("HDEL", KEYS[2], "bytes")
+end
+
+return removed
@@ -1,5 +1,10 @@
--- keys: queue_key, queue_metadata_key, queue_index
+-- keys: queue_key, queue_metadata_key, queue_index, account_queues_key (absent for queues written before the registry)
+-- argv: device_id
 
 redis.call("DEL", KEYS[1])
 redis.call("DEL", KEYS[2])
 redis.call("ZREM", KEYS[3], KEYS[1])
+
+if KEYS[4] then
+    redis.call("SREM", KEYS[4], ARGV[1])
+end
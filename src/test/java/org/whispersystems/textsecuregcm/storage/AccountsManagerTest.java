@@ -0,0 +1,247 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.google.common.base.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.whispersystems.textsecuregcm.redis.ReplicatedJedisPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.Mockito.*;
+
+public class AccountsManagerTest {
+
+  private static final String NUMBER = "+14152222222";
+  private static final byte[] KEY    = getKey(NUMBER);
+
+  private static final String LOCAL   = "+14153333333";
+  private static final String SHARED  = "+14154444444";
+  private static final String REPLICA = "+14155555555";
+  private static final String PRIMARY = "+14156666666";
+  private static final String MISSING = "+14157777777";
+
+  private final Accounts            accounts    = mock(Accounts.class);
+  private final DirectoryManager    directory   = mock(DirectoryManager.class);
+  private final ReplicatedJedisPool cacheClient = mock(ReplicatedJedisPool.class);
+  private final Jedis               jedis       = mock(Jedis.class);
+  private final LocalAccountCache   localCache  = mock(LocalAccountCache.class);
+  private final Pipeline            pipeline    = mock(Pipeline.class);
+
+  private AccountsManager accountsManager;
+
+  @Before
+  public void setup() {
+    when(cacheClient.getWriteResource()).thenReturn(jedis);
+    when(cacheClient.getReadResource()).thenReturn(jedis);
+    when(jedis.pipelined()).thenReturn(pipeline);
+    when(localCache.get(anyString())).thenReturn(Optional.absent());
+
+    accountsManager = new AccountsManager(accounts, accounts, Optional.absent(), Optional.of(localCache), directory, cacheClient);
+  }
+
+  @Test
+  public void testUpdate() {
+    Account account = createAccount(4);
+
+    when(accounts.update(account)).thenReturn(1);
+
+    assertTrue(accountsManager.update(account));
+    assertEquals(5, account.getVersion());
+
+    verify(jedis).set(aryEq(KEY), any(byte[].class));
+    verify(localCache).invalidate(NUMBER);
+  }
+
+  @Test
+  public void testUpdateConflict() {
+    Account account = createAccount(4);
+
+    when(accounts.update(account)).thenReturn(0);
+
+    assertFalse(accountsManager.update(account));
+    assertEquals(4, account.getVersion());
+
+    verify(jedis, never()).del(any(byte[].class));
+    verify(jedis, never()).set(any(byte[].class), any(byte[].class));
+    verify(localCache, never()).invalidate(NUMBER);
+    verifyZeroInteractions(directory);
+  }
+
+  @Test
+  public void testUpdateDeviceRetry() {
+    Account stale = createAccount(4);
+    Account fresh = createAccount(5);
+
+    when(accounts.updateDevice(eq(NUMBER), eq(4L), eq(1L), anyString())).thenReturn(0);
+    when(accounts.updateDevice(eq(NUMBER), eq(5L), eq(1L), anyString())).thenReturn(1);
+    when(accounts.get(NUMBER)).thenReturn(fresh);
+
+    assertTrue(accountsManager.updateDevice(stale, 1, device -> device.setGcmId("updated")));
+
+    assertEquals("updated", fresh.getDevice(1).get().getGcmId());
+    assertEquals(6, fresh.getVersion());
+
+    verify(accounts, times(2)).updateDevice(eq(NUMBER), anyLong(), eq(1L), anyString());
+    verify(jedis).set(aryEq(KEY), any(byte[].class));
+  }
+
+  @Test
+  public void testUpdateDeviceGivesUp() {
+    when(accounts.updateDevice(eq(NUMBER), anyLong(), eq(1L), anyString())).thenReturn(0);
+    when(accounts.get(NUMBER)).thenReturn(createAccount(5), createAccount(6));
+
+    assertFalse(accountsManager.updateDevice(createAccount(4), 1, device -> device.setGcmId("updated")));
+
+    verify(accounts, times(3)).updateDevice(eq(NUMBER), anyLong(), eq(1L), anyString());
+    verify(jedis, never()).set(any(byte[].class), any(byte[].class));
+  }
+
+  @Test
+  public void testUpdateMissingDevice() {
+    assertFalse(accountsManager.updateDevice(createAccount(4), 3, device -> device.setGcmId("updated")));
+
+    verify(accounts, never()).updateDevice(anyString(), anyLong(), anyLong(), anyString());
+  }
+
+  @Test
+  public void testUpdateProfileDeleted() {
+    when(accounts.updateProfile(eq(NUMBER), eq(4L), anyString(), any(), any())).thenReturn(0);
+    when(accounts.get(NUMBER)).thenReturn(null);
+
+    assertFalse(accountsManager.updateProfile(createAccount(4), account -> account.setName("name")));
+
+    verify(accounts, times(1)).updateProfile(eq(NUMBER), anyLong(), anyString(), any(), any());
+  }
+
+  @Test
+  public void testGetAllPartialCacheHits() {
+    when(localCache.get(LOCAL)).thenReturn(Optional.of(AccountCodec.encode(createAccount(LOCAL, 1))));
+    when(localCache.getVersion(SHARED)).thenReturn(7L);
+    when(localCache.getVersion(PRIMARY)).thenReturn(8L);
+    when(jedis.mget((byte[])any())).thenAnswer(invocation -> getCached(invocation.getArguments(), createAccount(SHARED, 2)));
+    when(accounts.getAll(anyCollection())).thenReturn(Arrays.asList(createAccount(PRIMARY, 3)));
+
+    Map<String, Account> results = accountsManager.getAll(Arrays.asList(LOCAL, SHARED, PRIMARY, MISSING));
+
+    assertEquals(new HashSet<>(Arrays.asList(LOCAL, SHARED, PRIMARY)), results.keySet());
+    assertEquals(1, results.get(LOCAL).getVersion());
+    assertEquals(2, results.get(SHARED).getVersion());
+    assertEquals(3, results.get(PRIMARY).getVersion());
+
+    verify(accounts).getAll(eq(new HashSet<>(Arrays.asList(PRIMARY, MISSING))));
+
+    verify(pipeline).set(aryEq(getKey(PRIMARY)), any(byte[].class));
+    verify(pipeline, never()).set(aryEq(getKey(SHARED)), any(byte[].class));
+    verify(pipeline).sync();
+
+    verify(localCache).put(eq(SHARED), any(byte[].class), eq(7L));
+    verify(localCache).put(eq(PRIMARY), any(byte[].class), eq(8L));
+    verify(localCache, never()).put(eq(LOCAL), any(byte[].class), anyLong());
+  }
+
+  @Test
+  public void testGetAllReplicaMisses() {
+    Accounts          replicaAccounts   = mock(Accounts.class);
+    ReplicaLagMonitor replicaLagMonitor = mock(ReplicaLagMonitor.class);
+
+    when(replicaLagMonitor.isAvailable()).thenReturn(true);
+    when(jedis.mget((byte[])any())).thenAnswer(invocation -> getCached(invocation.getArguments()));
+    when(replicaAccounts.getAll(anyCollection())).thenReturn(Arrays.asList(createAccount(REPLICA, 1)));
+    when(accounts.getAll(anyCollection())).thenReturn(Arrays.asList(createAccount(PRIMARY, 2)));
+
+    AccountsManager      replicated = new AccountsManager(accounts, replicaAccounts, Optional.of(replicaLagMonitor), Optional.absent(), directory, cacheClient);
+    Map<String, Account> results    = replicated.getAll(Arrays.asList(REPLICA, PRIMARY, MISSING));
+
+    assertEquals(new HashSet<>(Arrays.asList(REPLICA, PRIMARY)), results.keySet());
+
+    // Only what the replica didn't have goes to the primary
+    verify(replicaAccounts).getAll(anyCollection());
+    verify(accounts).getAll(eq(new HashSet<>(Arrays.asList(PRIMARY, MISSING))));
+
+    // Replica reads never overwrite an entry, and expire on their own
+    verify(pipeline).set(aryEq(getKey(REPLICA)), any(byte[].class), aryEq("NX".getBytes()), aryEq("EX".getBytes()), anyInt());
+    verify(pipeline, never()).set(aryEq(getKey(REPLICA)), any(byte[].class));
+    verify(pipeline).set(aryEq(getKey(PRIMARY)), any(byte[].class));
+    verify(pipeline, never()).set(aryEq(getKey(PRIMARY)), any(byte[].class), any(byte[].class), any(byte[].class), anyInt());
+    verify(pipeline).sync();
+  }
+
+  @Test
+  public void testGetAllReplicaUnavailable() {
+    Accounts          replicaAccounts   = mock(Accounts.class);
+    ReplicaLagMonitor replicaLagMonitor = mock(ReplicaLagMonitor.class);
+
+    when(replicaLagMonitor.isAvailable()).thenReturn(false);
+    when(jedis.mget((byte[])any())).thenAnswer(invocation -> getCached(invocation.getArguments()));
+    when(accounts.getAll(anyCollection())).thenReturn(Arrays.asList(createAccount(PRIMARY, 2)));
+
+    AccountsManager      replicated = new AccountsManager(accounts, replicaAccounts, Optional.of(replicaLagMonitor), Optional.absent(), directory, cacheClient);
+    Map<String, Account> results    = replicated.getAll(Arrays.asList(PRIMARY, MISSING));
+
+    assertEquals(new HashSet<>(Arrays.asList(PRIMARY)), results.keySet());
+
+    verifyZeroInteractions(replicaAccounts);
+    verify(accounts).getAll(eq(new HashSet<>(Arrays.asList(PRIMARY, MISSING))));
+    verify(pipeline).set(aryEq(getKey(PRIMARY)), any(byte[].class));
+  }
+
+  @Test
+  public void testGetAllCached() {
+    when(jedis.mget((byte[])any())).thenAnswer(invocation -> getCached(invocation.getArguments(), createAccount(SHARED, 2)));
+
+    Map<String, Account> results = accountsManager.getAll(Arrays.asList(SHARED));
+
+    assertEquals(new HashSet<>(Arrays.asList(SHARED)), results.keySet());
+
+    verify(accounts, never()).getAll(anyCollection());
+    verify(jedis, never()).pipelined();
+  }
+
+  // Answers an MGET with the encoded copies of whichever of cached were asked for
+  private static List<byte[]> getCached(Object[] arguments, Account... cached) {
+    List<byte[]> values = new ArrayList<>();
+
+    for (Object argument : arguments) {
+      for (byte[] key : argument instanceof byte[][] ? (byte[][])argument : new byte[][] {(byte[])argument}) {
+        byte[] value = null;
+
+        for (Account account : cached) {
+          if (Arrays.equals(key, getKey(account.getNumber()))) {
+            value = AccountCodec.encode(account);
+          }
+        }
+
+        values.add(value);
+      }
+    }
+
+    return values;
+  }
+
+  private static byte[] getKey(String number) {
+    return ("Account" + Account.MEMCACHE_VERION + number).getBytes();
+  }
+
+  private Account createAccount(long version) {
+    return createAccount(NUMBER, version);
+  }
+
+  private Account createAccount(String number, long version) {
+    Device  master    = new Device(1, null, "token", "salt", null, "gcm1", null, null, false, 1, null, 0, 0, true, false, null);
+    Device  secondary = new Device(2, null, "token", "salt", null, "gcm2", null, null, false, 2, null, 0, 0, true, false, null);
+    Account account   = new Account(number, new HashSet<>(Arrays.asList(master, secondary)));
+
+    account.setVersion(version);
+    return account;
+  }
+}
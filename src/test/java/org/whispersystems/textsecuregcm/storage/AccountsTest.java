@@ -0,0 +1,126 @@
+package org.whispersystems.textsecuregcm.storage;
+
+import com.opentable.db.postgres.embedded.LiquibasePreparer;
+import com.opentable.db.postgres.junit.EmbeddedPostgresRules;
+import com.opentable.db.postgres.junit.PreparedDbRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.skife.jdbi.v2.DBI;
+import org.whispersystems.textsecuregcm.util.SystemMapper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AccountsTest {
+
+  private static final String NUMBER = "+14152222222";
+
+  @Rule
+  public PreparedDbRule db = EmbeddedPostgresRules.preparedDatabase(LiquibasePreparer.forClasspathLocation("accountsdb.xml"));
+
+  private Accounts accounts;
+
+  @Before
+  public void setup() {
+    this.accounts = new DBI(db.getTestDatabase()).onDemand(Accounts.class);
+  }
+
+  @Test
+  public void testCreate() {
+    assertTrue(accounts.create(createAccount(NUMBER)));
+    assertEquals(0, accounts.get(NUMBER).getVersion());
+
+    // Re-registration keeps counting, so copies of the old account never match
+    accounts.create(createAccount(NUMBER));
+    assertEquals(1, accounts.get(NUMBER).getVersion());
+  }
+
+  @Test
+  public void testUpdate() {
+    accounts.create(createAccount(NUMBER));
+
+    Account current = accounts.get(NUMBER);
+    Account stale   = accounts.get(NUMBER);
+
+    current.setPin("31337");
+    assertEquals(1, accounts.update(current));
+
+    stale.setPin("12345");
+    assertEquals(0, accounts.update(stale));
+
+    Account stored = accounts.get(NUMBER);
+    assertEquals("31337", stored.getPin().get());
+    assertEquals(1, stored.getVersion());
+  }
+
+  @Test
+  public void testUpdateDevice() throws Exception {
+    accounts.create(createAccount(NUMBER));
+
+    Account account = accounts.get(NUMBER);
+    Device  device  = account.getDevice(2).get();
+
+    device.setGcmId("updated");
+
+    assertEquals(0, accounts.updateDevice(NUMBER, account.getVersion() + 1, 2, SystemMapper.getMapper().writeValueAsString(device)));
+    assertEquals(0, accounts.updateDevice(NUMBER, account.getVersion(), 3, SystemMapper.getMapper().writeValueAsString(device)));
+    assertEquals(1, accounts.updateDevice(NUMBER, account.getVersion(), 2, SystemMapper.getMapper().writeValueAsString(device)));
+
+    Account stored = accounts.get(NUMBER);
+    assertEquals("updated", stored.getDevice(2).get().getGcmId());
+    assertEquals("gcm1", stored.getDevice(1).get().getGcmId());
+    assertEquals(account.getVersion() + 1, stored.getVersion());
+  }
+
+  @Test
+  public void testUpdateProfile() {
+    accounts.create(createAccount(NUMBER));
+
+    Account account = accounts.get(NUMBER);
+
+    assertEquals(0, accounts.updateProfile(NUMBER, account.getVersion() + 1, "name", "avatar", "digest"));
+    assertEquals(1, accounts.updateProfile(NUMBER, account.getVersion(), "name", "avatar", "digest"));
+
+    Account stored = accounts.get(NUMBER);
+    assertEquals("name", stored.getName());
+    assertEquals("avatar", stored.getAvatar());
+    assertEquals("digest", stored.getAvatarDigest());
+    assertEquals("gcm2", stored.getDevice(2).get().getGcmId());
+    assertEquals(account.getVersion() + 1, stored.getVersion());
+  }
+
+  @Test
+  public void testSetLastSeen() {
+    accounts.create(createAccount(NUMBER));
+
+    accounts.setLastSeen(Arrays.asList(NUMBER, NUMBER), Arrays.asList(1L, 2L), Arrays.asList(5000L, 500L));
+
+    Account stored = accounts.get(NUMBER);
+    assertEquals(5000, stored.getDevice(1).get().getLastSeen());
+    assertEquals(1000, stored.getDevice(2).get().getLastSeen());
+    assertEquals(0, stored.getVersion());
+  }
+
+  @Test
+  public void testGetAll() {
+    accounts.create(createAccount(NUMBER));
+    accounts.create(createAccount("+14153333333"));
+
+    assertEquals(2, accounts.getAll(Arrays.asList(NUMBER, "+14153333333", "+14154444444")).size());
+    assertEquals(0, accounts.getAll(Collections.singletonList("+14154444444")).size());
+    assertNull(accounts.get("+14154444444"));
+  }
+
+  private Account createAccount(String number) {
+    Device master    = new Device(1, null, "token", "salt", null, "gcm1", null, null, false, 1, null, 1000, 1000, true, false, null);
+    Device secondary = new Device(2, null, "token", "salt", null, "gcm2", null, null, false, 2, null, 1000, 1000, true, false, null);
+
+    return new Account(number, new HashSet<>(Arrays.asList(master, secondary)));
+  }
+}
@@ -0,0 +1,35 @@
+package org.whispersystems.textsecuregcm.tests.auth;
+
+import org.junit.Test;
+import org.whispersystems.textsecuregcm.auth.AuthenticationCredentials;
+import org.whispersystems.textsecuregcm.auth.CredentialCache;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CredentialCacheTest {
+
+  @Test
+  public void testVerified() {
+    CredentialCache           cache       = new CredentialCache(100, 60);
+    AuthenticationCredentials credentials = new AuthenticationCredentials("password");
+
+    assertFalse(cache.isVerified("+14152222222", 1, credentials, "password"));
+
+    cache.setVerified("+14152222222", 1, credentials, "password");
+
+    assertTrue(cache.isVerified("+14152222222", 1, credentials, "password"));
+    assertFalse(cache.isVerified("+14152222222", 1, credentials, "wrongpassword"));
+    assertFalse(cache.isVerified("+14152222222", 2, credentials, "password"));
+  }
+
+  @Test
+  public void testCredentialsChanged() {
+    CredentialCache           cache       = new CredentialCache(100, 60);
+    AuthenticationCredentials credentials = new AuthenticationCredentials("password");
+
+    cache.setVerified("+14152222222", 1, credentials, "password");
+
+    assertFalse(cache.isVerified("+14152222222", 1, new AuthenticationCredentials("password"), "password"));
+  }
+}
@@ -93,6 +93,7 @@ public class AccountControllerTest {
     when(accountsManager.get(eq(SENDER_OVER_PIN))).thenReturn(Optional.of(senderPinAccount));
     when(accountsManager.get(eq(SENDER))).thenReturn(Optional.absent());
     when(accountsManager.get(eq(SENDER_OLD))).thenReturn(Optional.absent());
+    when(accountsManager.update(any(Account.class))).thenReturn(true);
 
     doThrow(new RateLimitExceededException(SENDER_OVER_PIN)).when(pinLimiter).validate(eq(SENDER_OVER_PIN));
   }
@@ -6,6 +6,8 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.MockitoAnnotations;
 import org.whispersystems.dropwizard.simpleauth.AuthValueFactoryProvider;
 import org.whispersystems.textsecuregcm.controllers.KeysController;
 import org.whispersystems.textsecuregcm.entities.PreKey;
@@ -29,6 +31,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import io.dropwizard.testing.junit.ResourceTestRule;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -68,8 +71,13 @@ public class KeyControllerTest {
                                                             .addResource(new KeysController(rateLimiters, keys, accounts, null))
                                                             .build();
 
+  @Captor
+  private ArgumentCaptor<Consumer<Device>> updaterCaptor;
+
   @Before
   public void setup() {
+    MockitoAnnotations.initMocks(this);
+
     final Device sampleDevice  = mock(Device.class);
     final Device sampleDevice2 = mock(Device.class);
     final Device sampleDevice3 = mock(Device.class);
@@ -111,6 +119,8 @@ public class KeyControllerTest {
 
     when(accounts.get(EXISTS_NUMBER)).thenReturn(Optional.of(existsAccount));
     when(accounts.get(NOT_EXISTS_NUMBER)).thenReturn(Optional.<Account>absent());
+    when(accounts.update(any(Account.class))).thenReturn(true);
+    when(accounts.updateDevice(any(Account.class), anyLong(), any())).thenReturn(true);
 
     when(rateLimiters.getPreKeysLimiter()).thenReturn(rateLimiter);
 
@@ -169,8 +179,10 @@ public class KeyControllerTest {
 
     assertThat(response.getStatus() == 204);
 
+    verify(accounts).updateDevice(eq(AuthHelper.VALID_ACCOUNT), anyLong(), updaterCaptor.capture());
+
+    updaterCaptor.getValue().accept(AuthHelper.VALID_DEVICE);
     verify(AuthHelper.VALID_DEVICE).setSignedPreKey(eq(test));
-    verify(accounts).update(eq(AuthHelper.VALID_ACCOUNT));
   }
 
   @Test
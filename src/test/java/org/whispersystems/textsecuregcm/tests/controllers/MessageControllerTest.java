@@ -8,6 +8,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.whispersystems.dropwizard.simpleauth.AuthValueFactoryProvider;
 import org.whispersystems.textsecuregcm.controllers.MessageController;
+import org.whispersystems.textsecuregcm.entities.AcknowledgedMessage;
+import org.whispersystems.textsecuregcm.entities.AcknowledgedMessageList;
 import org.whispersystems.textsecuregcm.entities.IncomingMessageList;
 import org.whispersystems.textsecuregcm.entities.MessageProtos.Envelope;
 import org.whispersystems.textsecuregcm.entities.MismatchedDevices;
@@ -26,10 +28,13 @@ import org.whispersystems.textsecuregcm.storage.AccountsManager;
 import org.whispersystems.textsecuregcm.storage.Device;
 import org.whispersystems.textsecuregcm.storage.MessagesManager;
 import org.whispersystems.textsecuregcm.tests.util.AuthHelper;
+import org.whispersystems.textsecuregcm.util.Pair;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -285,4 +290,35 @@ public class MessageControllerTest {
 
   }
 
+  @Test
+  public synchronized void testAcknowledgeMessages() throws Exception {
+    long timestamp = System.currentTimeMillis();
+
+    List<Pair<String, Long>>    senders = Arrays.asList(new Pair<>("+14152222222", 31337L),
+                                                        new Pair<>("+14152222222", 31338L),
+                                                        new Pair<>("+14152222222", 31339L));
+    List<OutgoingMessageEntity> removed = new LinkedList<>();
+
+    removed.add(new OutgoingMessageEntity(31337L, true, Envelope.Type.CIPHERTEXT_VALUE, null, timestamp,
+                                          "+14152222222", 1, "hi".getBytes(), null));
+    removed.add(new OutgoingMessageEntity(31338L, true, Envelope.Type.RECEIPT_VALUE, null, timestamp + 1,
+                                          "+14152222222", 1, null, null));
+
+    when(messagesManager.delete(eq(AuthHelper.VALID_NUMBER), eq(1L), eq(senders))).thenReturn(removed);
+
+    AcknowledgedMessageList acknowledgements = new AcknowledgedMessageList(Arrays.asList(new AcknowledgedMessage("+14152222222", 31337),
+                                                                                         new AcknowledgedMessage("+14152222222", 31338),
+                                                                                         new AcknowledgedMessage("+14152222222", 31339)));
+
+    Response response = resources.getJerseyTest()
+                                 .target("/v1/messages/acknowledgements")
+                                 .request()
+                                 .header("Authorization", AuthHelper.getAuthHeader(AuthHelper.VALID_NUMBER, AuthHelper.VALID_PASSWORD))
+                                 .post(Entity.entity(acknowledgements, MediaType.APPLICATION_JSON_TYPE));
+
+    assertThat("Good Response Code", response.getStatus(), is(equalTo(204)));
+    verify(receiptSender).sendReceipts(any(Account.class), eq(Collections.singletonMap("+14152222222", Arrays.asList(timestamp))));
+    verifyNoMoreInteractions(receiptSender);
+  }
+
 }
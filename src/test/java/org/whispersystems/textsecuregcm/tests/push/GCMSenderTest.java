@@ -2,7 +2,11 @@ package org.whispersystems.textsecuregcm.tests.push;
 
 import com.google.common.base.Optional;
 import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.MockitoAnnotations;
 import org.mockito.Matchers;
 import org.whispersystems.gcm.server.Message;
 import org.whispersystems.gcm.server.Result;
@@ -14,11 +18,21 @@ import org.whispersystems.textsecuregcm.storage.AccountsManager;
 import org.whispersystems.textsecuregcm.storage.Device;
 import org.whispersystems.textsecuregcm.tests.util.SynchronousExecutorService;
 
+import java.util.function.Consumer;
+
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 public class GCMSenderTest {
 
+  @Captor
+  private ArgumentCaptor<Consumer<Device>> updaterCaptor;
+
+  @Before
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+  }
+
   @Test
   public void testSendMessage() {
     AccountsManager            accountsManager = mock(AccountsManager.class);
@@ -80,8 +94,12 @@ public class GCMSenderTest {
 
     verify(sender, times(1)).send(any(Message.class), eq(message));
     verify(accountsManager, times(1)).get(eq(destinationNumber));
-    verify(accountsManager, times(1)).update(eq(destinationAccount));
+
+    verify(accountsManager, times(1)).updateDevice(eq(destinationAccount), eq(1L), updaterCaptor.capture());
+
+    updaterCaptor.getValue().accept(destinationDevice);
     verify(destinationDevice, times(1)).setGcmId(eq((String)null));
+    verify(destinationDevice, times(1)).setFetchesMessages(eq(false));
   }
 
   @Test
@@ -121,7 +139,10 @@ public class GCMSenderTest {
 
     verify(sender, times(1)).send(any(Message.class), eq(message));
     verify(accountsManager, times(1)).get(eq(destinationNumber));
-    verify(accountsManager, times(1)).update(eq(destinationAccount));
+
+    verify(accountsManager, times(1)).updateDevice(eq(destinationAccount), eq(1L), updaterCaptor.capture());
+
+    updaterCaptor.getValue().accept(destinationDevice);
     verify(destinationDevice, times(1)).setGcmId(eq(canonicalId));
   }
 
@@ -0,0 +1,126 @@
+package org.whispersystems.textsecuregcm.tests.storage;
+
+import org.junit.Test;
+import org.whispersystems.textsecuregcm.entities.SignedPreKey;
+import org.whispersystems.textsecuregcm.storage.Account;
+import org.whispersystems.textsecuregcm.storage.AccountCodec;
+import org.whispersystems.textsecuregcm.storage.Device;
+import org.whispersystems.textsecuregcm.util.SystemMapper;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AccountCodecTest {
+
+  private Account getAccount() {
+    Device master    = new Device(1, "master", "hashedtoken", "1234", "signalingkey", "gcmid", null, null, false, 1234,
+                                  new SignedPreKey(5, "publickey", "signature"), 1500000000000L, 1400000000000L,
+                                  true, false, "Signal-Android");
+    Device secondary = new Device(2, null, "otherhashedtoken", "5678", "othersignalingkey", null, "apnid", "voipapnid",
+                                  true, 4321, null, 1500000000000L, 1400000000000L, false, true, null);
+
+    Account account = new Account("+14152222222", new HashSet<Device>() {{
+      add(master);
+      add(secondary);
+    }});
+
+    account.setIdentityKey("identitykey");
+    account.setName("name");
+    account.setPin("123456");
+    account.setPhoneBuyDate(new Date(1450000000000L));
+    account.setBalance(new BigDecimal("12.50"));
+    account.setVersion(7);
+
+    return account;
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Account account = AccountCodec.decode(AccountCodec.encode(getAccount()));
+
+    assertEquals(account.getNumber(), "+14152222222");
+    assertEquals(account.getIdentityKey(), "identitykey");
+    assertEquals(account.getName(), "name");
+    assertEquals(account.getPin().get(), "123456");
+    assertEquals(account.getPhoneBuyDate().getTime(), 1450000000000L);
+    assertEquals(account.getBalance(), new BigDecimal("12.50"));
+    assertEquals(account.getPhonePrice(), null);
+    assertEquals(account.getAvatar(), null);
+    assertEquals(account.getVersion(), 7);
+    assertEquals(account.getDevices().size(), 2);
+
+    Device master = account.getDevice(1).get();
+
+    assertEquals(master.getName(), "master");
+    assertEquals(master.getAuthenticationCredentials().getHashedAuthenticationToken(), "hashedtoken");
+    assertEquals(master.getAuthenticationCredentials().getSalt(), "1234");
+    assertEquals(master.getGcmId(), "gcmid");
+    assertEquals(master.getApnId(), null);
+    assertEquals(master.getRegistrationId(), 1234);
+    assertEquals(master.getSignedPreKey(), new SignedPreKey(5, "publickey", "signature"));
+    assertEquals(master.getLastSeen(), 1500000000000L);
+    assertEquals(master.getCreated(), 1400000000000L);
+    assertEquals(master.getUserAgent(), "Signal-Android");
+    assertTrue(master.isVoiceSupported());
+    assertFalse(master.isVideoSupported());
+    assertFalse(master.getFetchesMessages());
+
+    Device secondary = account.getDevice(2).get();
+
+    assertEquals(secondary.getName(), null);
+    assertEquals(secondary.getApnId(), "apnid");
+    assertEquals(secondary.getVoipApnId(), "voipapnid");
+    assertEquals(secondary.getSignedPreKey(), null);
+    assertTrue(secondary.getFetchesMessages());
+    assertTrue(secondary.isVideoSupported());
+  }
+
+  @Test
+  public void testLegacyJson() throws Exception {
+    byte[]  json    = SystemMapper.getMapper().writeValueAsBytes(getAccount());
+    Account account = AccountCodec.decode(json);
+
+    assertEquals(account.getNumber(), "+14152222222");
+    assertEquals(account.getDevices().size(), 2);
+    assertEquals(account.getDevice(1).get().getSignedPreKey(), new SignedPreKey(5, "publickey", "signature"));
+  }
+
+  @Test
+  public void testSmallerThanJson() throws Exception {
+    Account account = getAccount();
+
+    assertTrue(AccountCodec.encode(account).length < SystemMapper.getMapper().writeValueAsBytes(account).length);
+  }
+
+  @Test
+  public void testDecodeFasterThanJson() throws Exception {
+    byte[] binary = AccountCodec.encode(getAccount());
+    byte[] json   = SystemMapper.getMapper().writeValueAsBytes(getAccount());
+
+    // Warm both paths up before timing them
+    timeDecode(binary, 20000);
+    timeDecode(json, 20000);
+
+    long binaryNanos = timeDecode(binary, 50000);
+    long jsonNanos   = timeDecode(json, 50000);
+
+    System.out.println("Decoded 50000 cached accounts: binary " + binaryNanos / 1000000 + "ms, json " + jsonNanos / 1000000 + "ms");
+
+    assertTrue(binaryNanos < jsonNanos);
+  }
+
+  private long timeDecode(byte[] serialized, int iterations) throws Exception {
+    long start = System.nanoTime();
+
+    for (int i = 0; i < iterations; i++) {
+      AccountCodec.decode(serialized);
+    }
+
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,101 @@
+package org.whispersystems.textsecuregcm.tests.storage;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.whispersystems.textsecuregcm.entities.SignedPreKey;
+import org.whispersystems.textsecuregcm.redis.ReplicatedJedisPool;
+import org.whispersystems.textsecuregcm.storage.ActivityStats;
+import org.whispersystems.textsecuregcm.storage.Device;
+
+import java.util.concurrent.TimeUnit;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ActivityStatsTest {
+
+  private static final long DAY = 17000;
+
+  @Test
+  public void testRecordMasterDevices() {
+    ReplicatedJedisPool jedisPool = mock(ReplicatedJedisPool.class);
+    Jedis               jedis     = mock(Jedis.class);
+    Pipeline            pipeline  = mock(Pipeline.class);
+
+    when(jedisPool.getWriteResource()).thenReturn(jedis);
+    when(jedis.pipelined()).thenReturn(pipeline);
+
+    Device android   = new Device(1, null, null, null, null, "gcmid", null, null, false, 1, null, 0, 0, false, false, null);
+    Device signed    = new Device(1, null, null, null, null, "gcmid", null, null, false, 1, new SignedPreKey(1, "a", "b"), 0, 0, false, false, null);
+    Device ios       = new Device(1, null, null, null, null, null, "apnid", null, false, 1, new SignedPreKey(1, "a", "b"), 0, 0, false, false, null);
+    Device secondary = new Device(2, null, null, null, null, "gcmid", null, null, false, 1, null, 0, 0, false, false, null);
+
+    ActivityStats activityStats = new ActivityStats(jedisPool);
+    long          lastSeen      = TimeUnit.DAYS.toMillis(DAY);
+
+    activityStats.onSeen("+14152222222", android, lastSeen);
+    activityStats.onSeen("+14155555555", signed, lastSeen + TimeUnit.DAYS.toMillis(1));
+    activityStats.onSeen("+14153333333", ios, lastSeen);
+    activityStats.onSeen("+14154444444", secondary, lastSeen);
+    activityStats.run();
+
+    verify(pipeline).pfadd(eq("activity::android::" + DAY), eq("+14152222222"));
+    verify(pipeline).pfadd(eq("activity::android::" + (DAY + 1)), eq("+14155555555"));
+    verify(pipeline).pfadd(eq("activity::signed_keys::" + (DAY + 1)), eq("+14155555555"));
+    verify(pipeline).pfadd(eq("activity::ios::" + DAY), eq("+14153333333"));
+    verify(pipeline, never()).pfadd(eq("activity::unsigned_keys::" + DAY), ArgumentMatchers.<String>any());
+    verify(pipeline, times(4)).expire(anyString(), anyInt());
+    verify(pipeline).sync();
+  }
+
+  @Test
+  public void testRecordSignedKeyUpload() {
+    ReplicatedJedisPool jedisPool = mock(ReplicatedJedisPool.class);
+    Jedis               jedis     = mock(Jedis.class);
+    Pipeline            pipeline  = mock(Pipeline.class);
+
+    when(jedisPool.getWriteResource()).thenReturn(jedis);
+    when(jedis.pipelined()).thenReturn(pipeline);
+
+    Device android = new Device(1, null, null, null, null, "gcmid", null, null, false, 1, new SignedPreKey(1, "a", "b"), 0, 0, false, false, null);
+    Device ios     = new Device(1, null, null, null, null, null, "apnid", null, false, 1, new SignedPreKey(1, "a", "b"), 0, 0, false, false, null);
+    long   today   = TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis());
+
+    ActivityStats activityStats = new ActivityStats(jedisPool);
+    activityStats.onSignedKey("+14152222222", android);
+    activityStats.onSignedKey("+14153333333", ios);
+    activityStats.run();
+
+    verify(pipeline).pfadd(eq("activity::signed_keys::" + today), eq("+14152222222"));
+    verify(pipeline, times(1)).pfadd(anyString(), ArgumentMatchers.<String>any());
+  }
+
+  @Test
+  public void testUnsignedCount() {
+    ReplicatedJedisPool jedisPool = mock(ReplicatedJedisPool.class);
+    Jedis               jedis     = mock(Jedis.class);
+    long                today     = TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis());
+
+    when(jedisPool.getReadResource()).thenReturn(jedis);
+    when(jedis.pfcount(eq("activity::android::" + today))).thenReturn(100L);
+    when(jedis.pfcount(eq("activity::signed_keys::" + today))).thenReturn(90L, 101L);
+
+    ActivityStats activityStats = new ActivityStats(jedisPool);
+
+    assertEquals(10, activityStats.getCount(ActivityStats.UNSIGNED_KEYS, today));
+    assertEquals(0, activityStats.getCount(ActivityStats.UNSIGNED_KEYS, today));
+  }
+
+  @Test
+  public void testNothingPending() {
+    ReplicatedJedisPool jedisPool = mock(ReplicatedJedisPool.class);
+
+    new ActivityStats(jedisPool).run();
+
+    verify(jedisPool, never()).getWriteResource();
+  }
+}
@@ -0,0 +1,109 @@
+package org.whispersystems.textsecuregcm.tests.storage;
+
+import com.google.protobuf.ByteString;
+import org.junit.Before;
+import org.junit.Test;
+import org.whispersystems.textsecuregcm.redis.ReplicatedJedisPool;
+import org.whispersystems.textsecuregcm.storage.EmptyQueueCache;
+import org.whispersystems.textsecuregcm.storage.PubSubAddress;
+import org.whispersystems.textsecuregcm.storage.PubSubManager;
+import org.whispersystems.textsecuregcm.storage.PubSubProtos.PubSubMessage;
+
+import redis.clients.jedis.Jedis;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class EmptyQueueCacheTest {
+
+  private final ReplicatedJedisPool jedisPool     = mock(ReplicatedJedisPool.class);
+  private final Jedis               jedis         = mock(Jedis.class);
+  private final PubSubManager       pubSubManager = mock(PubSubManager.class);
+
+  private EmptyQueueCache cache;
+
+  @Before
+  public void setup() {
+    when(jedisPool.getWriteResource()).thenReturn(jedis);
+
+    cache = new EmptyQueueCache(jedisPool, 100, 60);
+    cache.setPubSubManager(pubSubManager);
+  }
+
+  @Test
+  public void testSetEmpty() {
+    assertFalse(cache.isEmpty("+14152222222", 1));
+
+    cache.setEmpty("+14152222222", 1, cache.watch("+14152222222", 1));
+
+    assertTrue(cache.isEmpty("+14152222222", 1));
+    assertFalse(cache.isEmpty("+14152222222", 2));
+    verify(jedis).setex(eq("empty_queue_watch::+14152222222:1"), anyInt(), anyString());
+  }
+
+  @Test
+  public void testLocalInvalidation() {
+    cache.setEmpty("+14152222222", 1, cache.watch("+14152222222", 1));
+    cache.invalidate("+14152222222", 1);
+
+    assertFalse(cache.isEmpty("+14152222222", 1));
+  }
+
+  @Test
+  public void testUnwatchedWrite() {
+    when(jedis.del("empty_queue_watch::+14152222222:1")).thenReturn(0L);
+
+    cache.invalidate("+14152222222", 1);
+
+    verify(pubSubManager, never()).publish(any(PubSubAddress.class), any(PubSubMessage.class));
+  }
+
+  @Test
+  public void testWatchedWrite() {
+    when(jedis.del("empty_queue_watch::+14152222222:1")).thenReturn(1L);
+
+    cache.invalidate("+14152222222", 1);
+
+    verify(pubSubManager).publish(any(PubSubAddress.class), eq(PubSubMessage.newBuilder()
+                                                         .setType(PubSubMessage.Type.INVALIDATE)
+                                                         .setContent(ByteString.copyFromUtf8("+14152222222:1"))
+                                                         .build()));
+  }
+
+  @Test
+  public void testRemoteInvalidation() {
+    cache.setEmpty("+14152222222", 1, cache.watch("+14152222222", 1));
+    cache.setEmpty("+14153333333", 1, cache.watch("+14153333333", 1));
+    cache.onDispatchMessage("EMPTY_QUEUE_INVALIDATION", PubSubMessage.newBuilder()
+                                                                     .setType(PubSubMessage.Type.INVALIDATE)
+                                                                     .setContent(ByteString.copyFromUtf8("+14152222222:1"))
+                                                                     .build()
+                                                                     .toByteArray());
+
+    assertFalse(cache.isEmpty("+14152222222", 1));
+    assertTrue(cache.isEmpty("+14153333333", 1));
+  }
+
+  @Test
+  public void testRacingInsert() {
+    long version = cache.watch("+14152222222", 1);
+
+    cache.invalidate("+14152222222", 1);
+    cache.setEmpty("+14152222222", 1, version);
+
+    assertFalse(cache.isEmpty("+14152222222", 1));
+  }
+
+  @Test
+  public void testUnrelatedInsert() {
+    long version = cache.watch("+14152222222", 1);
+
+    cache.invalidate("+14153333333", 1);
+    cache.setEmpty("+14152222222", 1, version);
+
+    assertTrue(cache.isEmpty("+14152222222", 1));
+  }
+}
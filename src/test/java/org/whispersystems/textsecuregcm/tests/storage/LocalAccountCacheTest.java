@@ -0,0 +1,85 @@
+package org.whispersystems.textsecuregcm.tests.storage;
+
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+import org.whispersystems.textsecuregcm.storage.LocalAccountCache;
+import org.whispersystems.textsecuregcm.storage.PubSubProtos.PubSubMessage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LocalAccountCacheTest {
+
+  @Test
+  public void testPut() {
+    LocalAccountCache cache = new LocalAccountCache(100, 60);
+
+    assertFalse(cache.get("+14152222222").isPresent());
+
+    cache.put("+14152222222", new byte[] {1, 2, 3}, cache.getVersion("+14152222222"));
+
+    assertArrayEquals(cache.get("+14152222222").get(), new byte[] {1, 2, 3});
+    assertFalse(cache.get("+14153333333").isPresent());
+  }
+
+  @Test
+  public void testRemoteInvalidation() {
+    LocalAccountCache cache = new LocalAccountCache(100, 60);
+
+    cache.put("+14152222222", new byte[] {1}, cache.getVersion("+14152222222"));
+    cache.onDispatchMessage("ACCOUNT_INVALIDATION", PubSubMessage.newBuilder()
+                                                                 .setType(PubSubMessage.Type.INVALIDATE)
+                                                                 .setContent(ByteString.copyFromUtf8("+14152222222"))
+                                                                 .build()
+                                                                 .toByteArray());
+
+    assertFalse(cache.get("+14152222222").isPresent());
+  }
+
+  @Test
+  public void testIgnoresOtherTypes() {
+    LocalAccountCache cache = new LocalAccountCache(100, 60);
+
+    cache.put("+14152222222", new byte[] {1}, cache.getVersion("+14152222222"));
+    cache.onDispatchMessage("ACCOUNT_INVALIDATION", PubSubMessage.newBuilder()
+                                                                 .setType(PubSubMessage.Type.QUERY_DB)
+                                                                 .setContent(ByteString.copyFromUtf8("+14152222222"))
+                                                                 .build()
+                                                                 .toByteArray());
+
+    assertTrue(cache.get("+14152222222").isPresent());
+  }
+
+  @Test
+  public void testRacingUpdate() {
+    LocalAccountCache cache   = new LocalAccountCache(100, 60);
+    long              version = cache.getVersion("+14152222222");
+
+    cache.invalidate("+14152222222");
+    cache.put("+14152222222", new byte[] {1}, version);
+
+    assertFalse(cache.get("+14152222222").isPresent());
+  }
+
+  @Test
+  public void testUnrelatedUpdate() {
+    LocalAccountCache cache   = new LocalAccountCache(100, 60);
+    long              version = cache.getVersion("+14152222222");
+
+    cache.invalidate("+14153333333");
+    cache.put("+14152222222", new byte[] {1}, version);
+
+    assertTrue(cache.get("+14152222222").isPresent());
+  }
+
+  @Test
+  public void testResubscribe() {
+    LocalAccountCache cache = new LocalAccountCache(100, 60);
+
+    cache.put("+14152222222", new byte[] {1}, cache.getVersion("+14152222222"));
+    cache.onDispatchSubscribed("ACCOUNT_INVALIDATION");
+
+    assertFalse(cache.get("+14152222222").isPresent());
+  }
+}
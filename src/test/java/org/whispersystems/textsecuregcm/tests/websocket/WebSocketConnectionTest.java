@@ -18,6 +18,7 @@ import org.whispersystems.textsecuregcm.push.WebsocketSender;
 import org.whispersystems.textsecuregcm.storage.Account;
 import org.whispersystems.textsecuregcm.storage.AccountsManager;
 import org.whispersystems.textsecuregcm.storage.Device;
+import org.whispersystems.textsecuregcm.storage.MessagesCache;
 import org.whispersystems.textsecuregcm.storage.MessagesManager;
 import org.whispersystems.textsecuregcm.storage.PubSubManager;
 import org.whispersystems.textsecuregcm.storage.PubSubProtos;
@@ -159,7 +160,7 @@ public class WebSocketConnectionTest {
     futures.get(0).setException(new IOException());
     futures.get(2).setException(new IOException());
 
-    verify(storedMessages, times(1)).delete(eq(account.getNumber()), eq(2L), eq(2L), eq(false));
+    verify(storedMessages, times(1)).delete(eq(account.getNumber()), eq(2L), eq(2L), eq(false), anyInt());
     verify(receiptSender, times(1)).sendReceipt(eq(account), eq("sender1"), eq(2222L), eq(Optional.<String>absent()));
 
     connection.onDispatchUnsubscribed(websocketAddress.serialize());
@@ -355,6 +356,51 @@ public class WebSocketConnectionTest {
   }
 
 
+  @Test
+  public void testSerializedCachedMessage() throws Exception {
+    MessagesManager storedMessages = mock(MessagesManager.class);
+
+    final Envelope cachedMessage = Envelope.newBuilder()
+                                           .setContent(ByteString.copyFrom("cached".getBytes()))
+                                           .setSource("sender3")
+                                           .setTimestamp(4444)
+                                           .setSourceDevice(1)
+                                           .setType(Envelope.Type.CIPHERTEXT)
+                                           .build();
+
+    List<OutgoingMessageEntity> pendingMessages = new LinkedList<OutgoingMessageEntity>() {{
+      add(new OutgoingMessageEntity(7L, MessagesCache.DRAINING_QUEUE, cachedMessage.toByteArray()));
+    }};
+
+    when(device.getId()).thenReturn(2L);
+    when(device.getSignalingKey()).thenReturn(Base64.encodeBytes(new byte[52]));
+
+    when(account.getAuthenticatedDevice()).thenReturn(Optional.of(device));
+    when(account.getNumber()).thenReturn("+14152222222");
+
+    when(storedMessages.getMessagesForDevice(account.getNumber(), device.getId()))
+        .thenReturn(new OutgoingMessageEntityList(pendingMessages, false));
+
+    final SettableFuture<WebSocketResponseMessage> future = SettableFuture.create();
+    final WebSocketClient                          client = mock(WebSocketClient.class);
+
+    when(client.sendRequest(eq("PUT"), eq("/api/v1/message"), ArgumentMatchers.nullable(List.class), ArgumentMatchers.<Optional<byte[]>>any()))
+        .thenReturn(future);
+
+    WebsocketAddress    websocketAddress = new WebsocketAddress(account.getNumber(), device.getId());
+    WebSocketConnection connection       = new WebSocketConnection(pushSender, receiptSender, storedMessages,
+                                                                   account, device, client, "cachedid");
+
+    connection.onDispatchSubscribed(websocketAddress.serialize());
+
+    WebSocketResponseMessage response = mock(WebSocketResponseMessage.class);
+    when(response.getStatus()).thenReturn(200);
+    future.set(response);
+
+    verify(storedMessages, times(1)).delete(eq(account.getNumber()), eq(2L), eq(7L), eq(true), eq(MessagesCache.DRAINING_QUEUE));
+    verify(receiptSender, times(1)).sendReceipt(eq(account), eq("sender3"), eq(4444L), eq(Optional.<String>absent()));
+  }
+
   private OutgoingMessageEntity createMessage(long id, boolean cached, String sender, long timestamp, boolean receipt, String content) {
     return new OutgoingMessageEntity(id, cached, receipt ? Envelope.Type.RECEIPT_VALUE : Envelope.Type.CIPHERTEXT_VALUE,
                                      null, timestamp, sender, 1, content.getBytes(), null);
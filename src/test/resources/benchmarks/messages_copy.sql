@@ -0,0 +1,76 @@
+-- Cost of writing persisted message chunks to the message store: one INSERT
+-- per message, as the persister used to issue, against one binary COPY per
+-- 100-message chunk, as it now does through Messages.copy.
+--
+-- Run as a superuser against a scratch database on the local server, since
+-- the chunk is written to and read from /tmp by the server:
+--
+--   psql -d scratch -f messages_copy.sql
+--
+-- Both runs write the same 10k messages into a table indexed like the
+-- messages table after changeset 7, and each statement is its own round
+-- trip, so the difference is per-statement overhead rather than row volume.
+
+\set chunk_file '/tmp/messages_copy_chunk.bin'
+\set columns 'type, relay, timestamp, source, source_device, destination, destination_device, message, content'
+
+DROP TABLE IF EXISTS messages_benchmark;
+DROP TABLE IF EXISTS messages_benchmark_source;
+
+CREATE TABLE messages_benchmark (
+    id                 bigserial PRIMARY KEY,
+    type               smallint NOT NULL,
+    relay              text     NOT NULL,
+    timestamp          bigint   NOT NULL,
+    source             text     NOT NULL,
+    source_device      integer  NOT NULL,
+    destination        text     NOT NULL,
+    destination_device integer  NOT NULL,
+    message            bytea,
+    content            bytea
+);
+
+CREATE INDEX messages_benchmark_queue_index ON messages_benchmark (destination, destination_device, timestamp, id);
+CREATE INDEX messages_benchmark_sender_index ON messages_benchmark (destination, destination_device, source, timestamp);
+
+CREATE TABLE messages_benchmark_source AS
+SELECT n AS id,
+       1 AS type,
+       '' AS relay,
+       1500000000000 + n AS timestamp,
+       '+1415' || lpad((random() * 9999999)::int::text, 7, '0') AS source,
+       1 AS source_device,
+       '+1650' || lpad((n / 100)::text, 7, '0') AS destination,
+       1 AS destination_device,
+       NULL::bytea AS message,
+       decode(repeat('ab', 256), 'hex') AS content
+FROM generate_series(1, 10000) AS n;
+
+-- One persister chunk: a single destination queue, in the column order of Messages.COPY_COLUMNS
+SELECT format('COPY (SELECT %s FROM messages_benchmark_source WHERE id <= 100 ORDER BY id) TO %L (FORMAT binary)',
+              :'columns', :'chunk_file') \gexec
+
+\echo '=== One INSERT per message: 10000 statements ==='
+
+SELECT clock_timestamp() AS started \gset
+
+SELECT format('INSERT INTO messages_benchmark (%s) VALUES (%s, %L, %s, %L, %s, %L, %s, NULL, %L)',
+              :'columns', type, relay, timestamp, source, source_device, destination, destination_device, content)
+FROM messages_benchmark_source ORDER BY id \gexec
+
+SELECT clock_timestamp() - :'started'::timestamptz AS insert_elapsed, count(*) AS rows FROM messages_benchmark;
+
+TRUNCATE messages_benchmark;
+VACUUM ANALYZE messages_benchmark;
+
+\echo '=== One binary COPY per 100-message chunk: 100 statements ==='
+
+SELECT clock_timestamp() AS started \gset
+
+SELECT format('COPY messages_benchmark (%s) FROM %L (FORMAT binary)', :'columns', :'chunk_file')
+FROM generate_series(1, 100) \gexec
+
+SELECT clock_timestamp() - :'started'::timestamptz AS copy_elapsed, count(*) AS rows FROM messages_benchmark;
+
+DROP TABLE messages_benchmark;
+DROP TABLE messages_benchmark_source;
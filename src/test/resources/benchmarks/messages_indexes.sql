@@ -0,0 +1,85 @@
+-- Plan and latency of the message store's per-device queries, before and
+-- after the indexes from messagedb.xml changeset 7.
+--
+-- Run against a scratch database:
+--
+--   psql -d scratch -f messages_indexes.sql
+--
+-- The synthetic table holds 5M messages over 100k device queues, with a
+-- skewed distribution: a few queues hold thousands of messages, most hold a
+-- handful, which is the shape that makes sorting a queue expensive.
+
+\timing on
+
+DROP TABLE IF EXISTS messages_benchmark;
+
+CREATE TABLE messages_benchmark (
+    id                 bigserial PRIMARY KEY,
+    type               smallint NOT NULL,
+    relay              text     NOT NULL,
+    timestamp          bigint   NOT NULL,
+    source             text     NOT NULL,
+    source_device      integer  NOT NULL,
+    destination        text     NOT NULL,
+    destination_device integer  NOT NULL,
+    message            bytea,
+    content            bytea
+);
+
+INSERT INTO messages_benchmark (type, relay, timestamp, source, source_device, destination, destination_device, content)
+SELECT 1,
+       '',
+       1500000000000 + (random() * 86400000 * 30)::bigint,
+       '+1415' || lpad((random() * 9999999)::int::text, 7, '0'),
+       1,
+       '+1650' || lpad(floor(100000 * power(random(), 4))::int::text, 7, '0'),
+       1,
+       decode(repeat('ab', 256), 'hex')
+FROM generate_series(1, 5000000);
+
+-- The indexes that existed before changeset 7
+CREATE INDEX messages_benchmark_destination_index ON messages_benchmark (destination, destination_device);
+CREATE INDEX messages_benchmark_destination_and_type_index ON messages_benchmark (destination, destination_device, type);
+
+VACUUM ANALYZE messages_benchmark;
+
+-- The hottest queue, and an ordinary one
+SELECT destination AS hot_destination FROM messages_benchmark GROUP BY destination ORDER BY count(*) DESC LIMIT 1 \gset
+SELECT destination AS cold_destination, min(source) AS cold_source, min(timestamp) AS cold_timestamp
+FROM messages_benchmark GROUP BY destination HAVING count(*) BETWEEN 5 AND 10 LIMIT 1 \gset
+
+\echo '=== Before ==='
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM messages_benchmark WHERE destination = :'hot_destination' AND destination_device = 1
+AND timestamp >= 0 AND (timestamp, id) > (0, 0) ORDER BY timestamp ASC, id ASC LIMIT 100;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM messages_benchmark WHERE destination = :'cold_destination' AND destination_device = 1
+AND timestamp >= 0 AND (timestamp, id) > (0, 0) ORDER BY timestamp ASC, id ASC LIMIT 100;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM messages_benchmark WHERE destination = :'hot_destination' AND destination_device = 1
+AND source = :'cold_source' AND timestamp = :cold_timestamp ORDER BY id LIMIT 1;
+
+CREATE INDEX messages_benchmark_queue_index ON messages_benchmark (destination, destination_device, timestamp, id);
+CREATE INDEX messages_benchmark_sender_index ON messages_benchmark (destination, destination_device, source, timestamp);
+DROP INDEX messages_benchmark_destination_index;
+
+ANALYZE messages_benchmark;
+
+\echo '=== After ==='
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM messages_benchmark WHERE destination = :'hot_destination' AND destination_device = 1
+AND timestamp >= 0 AND (timestamp, id) > (0, 0) ORDER BY timestamp ASC, id ASC LIMIT 100;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM messages_benchmark WHERE destination = :'cold_destination' AND destination_device = 1
+AND timestamp >= 0 AND (timestamp, id) > (0, 0) ORDER BY timestamp ASC, id ASC LIMIT 100;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM messages_benchmark WHERE destination = :'hot_destination' AND destination_device = 1
+AND source = :'cold_source' AND timestamp = :cold_timestamp ORDER BY id LIMIT 1;
+
+DROP TABLE messages_benchmark;